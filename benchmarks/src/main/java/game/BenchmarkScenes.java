@@ -0,0 +1,36 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// deterministic scene generation shared by the benchmarks
+final class BenchmarkScenes {
+    static final long SEED = 42L;
+
+    private BenchmarkScenes() {
+    }
+
+    // scatters objectCount casters uniformly over a gridSize x gridSize cell area
+    static List<GameObject> randomObjects(int objectCount, int gridSize) {
+        Random rand = new Random(SEED);
+        List<GameObject> objects = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            double x = rand.nextDouble() * (gridSize - 4) + 2;
+            double y = rand.nextDouble() * (gridSize - 4) + 2;
+            double height = 1.0 + rand.nextDouble() * 2.0;
+            objects.add(new GameObject(new Vector2D(x, y), height, World.randomLightRgb(rand)));
+        }
+        return objects;
+    }
+
+    // sun angle a quarter turn after sunrise (the sun is up for angles in [pi, 2pi])
+    private static final double MORNING_ANGLE = 1.25 * Math.PI;
+
+    // steps the world to mid-morning, so shadow benchmarks measure the full path
+    static World daytimeWorld(List<GameObject> objects) {
+        World world = new World(objects);
+        world.step(MORNING_ANGLE);
+        return world;
+    }
+}
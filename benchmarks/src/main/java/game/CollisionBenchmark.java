@@ -0,0 +1,54 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// player collision against a scene of constant density: brute force grows with object count, the
+// spatial hash broad phase should stay flat
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private static final double CELLS_PER_OBJECT = 4.0;
+
+    @Param({ "15", "1000", "100000", "1000000" })
+    int objectCount;
+
+    private List<GameObject> objects;
+    private SpatialHash index;
+    private Player player;
+    private final List<GameObject> nearby = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        int gridSize = Math.max(World.GRID_SIZE, (int) Math.sqrt(objectCount * CELLS_PER_OBJECT));
+        objects = BenchmarkScenes.randomObjects(objectCount, gridSize);
+        index = SpatialHash.of(objects, World.INDEX_CELL_SIZE);
+        player = new Player(new Vector2D(gridSize / 2.0, gridSize / 2.0));
+    }
+
+    @Benchmark
+    public Vector2D bruteForce() {
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            player.handleCollision(objects.get(i));
+        }
+        return player.getPosition();
+    }
+
+    @Benchmark
+    public Vector2D broadPhase() {
+        Vector2D pos = player.getPosition();
+        nearby.clear();
+        index.queryRadius(pos.getX(), pos.getY(), player.getRadius(), nearby);
+        for (int i = 0, n = nearby.size(); i < n; i++) {
+            player.handleCollision(nearby.get(i));
+        }
+        return player.getPosition();
+    }
+}
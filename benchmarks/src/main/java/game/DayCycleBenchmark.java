@@ -0,0 +1,36 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// full shadow pass as the light moves every frame, live calculation against the baked day-cycle table
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayCycleBenchmark {
+    @Param({ "15", "1000", "100000" })
+    int objectCount;
+
+    @Param({ "false", "true" })
+    boolean baked;
+
+    private World world;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkScenes.daytimeWorld(BenchmarkScenes.randomObjects(objectCount, World.GRID_SIZE));
+        if (baked) {
+            world.getLighting().setDayCycle(DayCycleTable.bake(world.getObjects(), 64));
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        world.step(1 / 60.0);
+        return world.getLighting().getShadowCount();
+    }
+}
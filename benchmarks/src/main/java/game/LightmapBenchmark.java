@@ -0,0 +1,47 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// lightmap rasterization alone, shadows already computed
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightmapBenchmark {
+    @Param({ "15", "1000", "100000" })
+    int objectCount;
+
+    @Param({ "640", "2048" })
+    int size;
+
+    @Param({ "1", "4" })
+    int parallelism;
+
+    private LightingEngine lighting;
+    private Lightmap lightmap;
+
+    @Setup
+    public void setup() {
+        World world = BenchmarkScenes.daytimeWorld(BenchmarkScenes.randomObjects(objectCount, World.GRID_SIZE));
+        lighting = world.getLighting();
+        lightmap = new Lightmap(size, size);
+        lightmap.setParallelism(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        lightmap.setParallelism(1);
+    }
+
+    @Benchmark
+    public Lightmap render() {
+        // full raster, unchanged tiles would otherwise be skipped
+        lightmap.invalidate();
+        lightmap.render(lighting.getAmbientLight(), lighting.getShadows());
+        return lightmap;
+    }
+}
@@ -0,0 +1,56 @@
+package game;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// one step of the mover systems (physics, collision, shadows) over a crowd wandering between static
+// casters, on the calling thread versus a pool
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoverBenchmark {
+    private static final double TICK = 1.0 / 60;
+
+    @Param({ "10000", "50000" })
+    int moverCount;
+
+    @Param({ "1", "4" })
+    int parallelism;
+
+    private World world;
+    private MoverStore movers;
+
+    @Setup
+    public void setup() {
+        // four cells of ground per mover, one static caster per eight cells
+        int gridSize = (int) Math.sqrt(moverCount * 4.0);
+        List<GameObject> objects = BenchmarkScenes.randomObjects(gridSize * gridSize / 8, gridSize);
+        world = BenchmarkScenes.daytimeWorld(objects);
+        world.setMoverBounds(0, 0, gridSize, gridSize);
+        Random rand = new Random(BenchmarkScenes.SEED);
+        for (int i = 0; i < moverCount; i++) {
+            world.addMover(rand.nextDouble() * gridSize, rand.nextDouble() * gridSize, 1.7, 0.3,
+                    World.randomLightRgb(rand));
+        }
+        world.getMoverSystems().setParallelism(parallelism);
+        movers = world.getMovers();
+        world.step(TICK); // hands the collision system its obstacles
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.getMoverSystems().setParallelism(1);
+    }
+
+    @Benchmark
+    public MoverStore step() {
+        world.getMoverSystems().run(movers, TICK);
+        return movers;
+    }
+}
@@ -0,0 +1,52 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// heightfield occlusion of every object top towards a mid-morning sun, and the pyramid rebuild
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OcclusionBenchmark {
+    @Param({ "1000", "100000" })
+    int objectCount;
+
+    @Param({ "32", "1024" })
+    int gridSize;
+
+    private List<GameObject> objects;
+    private HeightField field;
+    private final MutableVector3D sun = new MutableVector3D();
+
+    @Setup
+    public void setup() {
+        objects = BenchmarkScenes.randomObjects(objectCount, gridSize);
+        field = new HeightField(0, 0, gridSize, gridSize, HeightField.DEFAULT_CELL_SIZE);
+        field.build(objects);
+        DayCycleTable.bodyDirection(1.25 * Math.PI, sun);
+    }
+
+    @Benchmark
+    public int occludedTops() {
+        int occluded = 0;
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            GameObject obj = objects.get(i);
+            Vector2D pos = obj.getPosition();
+            if (field.isOccluded(pos.getX(), pos.getY(), obj.getHeight(), sun.getX(), sun.getY(), sun.getZ())) {
+                occluded++;
+            }
+        }
+        return occluded;
+    }
+
+    @Benchmark
+    public HeightField build() {
+        field.build(objects);
+        return field;
+    }
+}
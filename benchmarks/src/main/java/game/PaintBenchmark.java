@@ -0,0 +1,46 @@
+package game;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// full paintComponent pass into an offscreen image, lighting already computed by the world
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaintBenchmark {
+    @Param({ "15", "1000", "100000", "1000000" })
+    int objectCount;
+
+    @Param({ "32", "1024" })
+    int gridSize;
+
+    private GameWorld view;
+    private BufferedImage image;
+    private Graphics2D g2d;
+
+    @Setup
+    public void setup() {
+        World world = BenchmarkScenes.daytimeWorld(BenchmarkScenes.randomObjects(objectCount, gridSize));
+        view = new GameWorld(world);
+        view.setSize(view.getPreferredSize());
+        image = new BufferedImage(view.getWidth(), view.getHeight(), BufferedImage.TYPE_INT_RGB);
+        g2d = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2d.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        view.paintComponent(g2d);
+        return image;
+    }
+}
@@ -0,0 +1,46 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// LightingEngine.updateShadows with the fork-join mode at different parallelism levels
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelShadowBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    int objectCount;
+
+    @Param({ "1", "4", "16" })
+    int parallelism;
+
+    private List<GameObject> objects;
+    private CelestialBody sun;
+    private LightingEngine lighting;
+
+    @Setup
+    public void setup() {
+        objects = BenchmarkScenes.randomObjects(objectCount, 1024);
+        sun = BenchmarkScenes.daytimeWorld(objects).getSun();
+        lighting = new LightingEngine();
+        lighting.setParallelism(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        lighting.setParallelism(1);
+    }
+
+    @Benchmark
+    public int updateShadows() {
+        // full relight, the cache would otherwise serve every slot
+        lighting.invalidateAll();
+        lighting.updateShadows(objects, sun);
+        return lighting.getShadowCount();
+    }
+}
@@ -0,0 +1,44 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerBenchmark {
+    private static final double DELTA_TIME = 1 / 60.0;
+
+    @Param({ "15", "1000", "100000", "1000000" })
+    int objectCount;
+
+    @Param({ "32", "1024" })
+    int gridSize;
+
+    private List<GameObject> objects;
+    private Player player;
+    private Vector2D force;
+
+    @Setup
+    public void setup() {
+        objects = BenchmarkScenes.randomObjects(objectCount, gridSize);
+        player = new Player(new Vector2D(gridSize / 2.0, gridSize / 2.0));
+        force = new Vector2D(1, 1).normalize().multiply(player.getAcceleration());
+    }
+
+    // one tick of player physics followed by collision against every object, as World.step does
+    @Benchmark
+    public Vector2D updateAndCollide() {
+        player.applyForce(force);
+        player.update(DELTA_TIME);
+        for (GameObject obj : objects) {
+            player.handleCollision(obj);
+        }
+        return player.getPosition();
+    }
+}
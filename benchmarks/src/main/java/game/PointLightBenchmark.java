@@ -0,0 +1,53 @@
+package game;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// point light shadows from the spatial index and their tile-culled rasterization
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointLightBenchmark {
+    @Param({ "15", "1000" })
+    int objectCount;
+
+    @Param({ "1", "16", "64" })
+    int lightCount;
+
+    private World world;
+    private Lightmap lightmap;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkScenes.daytimeWorld(BenchmarkScenes.randomObjects(objectCount, World.GRID_SIZE));
+        Random rand = new Random(BenchmarkScenes.SEED);
+        for (int i = 0; i < lightCount; i++) {
+            Vector2D position = new Vector2D(rand.nextDouble() * World.GRID_SIZE, rand.nextDouble() * World.GRID_SIZE);
+            world.addLight(new PointLight(position, 4.0, 3.0 + rand.nextDouble() * 5.0, 1.5, 0.8,
+                    World.randomLightRgb(rand)));
+        }
+        world.updateLighting();
+        lightmap = new Lightmap(World.GRID_SIZE * World.CELL_SIZE, World.GRID_SIZE * World.CELL_SIZE);
+    }
+
+    @Benchmark
+    public int updatePointLights() {
+        LightingEngine lighting = world.getLighting();
+        lighting.updatePointLights(world.getLights(), world.getObjectIndex());
+        return lighting.getPointLightShadowCount();
+    }
+
+    @Benchmark
+    public Lightmap render() {
+        // full raster, unchanged tiles would otherwise be skipped
+        LightingEngine lighting = world.getLighting();
+        lightmap.invalidate();
+        lightmap.render(lighting.getAmbientLight(), lighting.getShadows(), lighting.getPointLights());
+        return lightmap;
+    }
+}
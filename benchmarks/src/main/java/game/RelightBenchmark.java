@@ -0,0 +1,49 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// the update right after the active body switches, the frame that relights every shadow at once
+// without a budget and only the ring around the focus with one
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelightBenchmark {
+    @Param({ "100000", "1000000" })
+    int objectCount;
+
+    @Param({ "0", "2" })
+    double budgetMillis;
+
+    private List<GameObject> objects;
+    private LightingEngine lighting;
+    private CelestialBody sun;
+    private CelestialBody otherSun;
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        objects = BenchmarkScenes.randomObjects(objectCount, World.GRID_SIZE);
+        World world = BenchmarkScenes.daytimeWorld(objects.subList(0, 1));
+        sun = world.getSun();
+        // a second visible body at the same position, so every switch relights every slot
+        otherSun = new CelestialBody(sun.getAngle(), true, World.CELESTIAL_RADIUS, World.CELESTIAL_RADIUS,
+                World.CELESTIAL_RADIUS);
+        lighting = new LightingEngine();
+        lighting.setTimeBudget(budgetMillis);
+        lighting.setFocus(World.GRID_SIZE / 2.0, World.GRID_SIZE / 2.0);
+        lighting.update(objects, sun);
+    }
+
+    @Benchmark
+    public LightingEngine switchBody() {
+        flip = !flip;
+        lighting.update(objects, flip ? otherSun : sun);
+        return lighting;
+    }
+}
@@ -0,0 +1,66 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShadowBenchmark {
+    @Param({ "15", "1000", "100000", "1000000" })
+    int objectCount;
+
+    @Param({ "32", "1024" })
+    int gridSize;
+
+    private List<GameObject> objects;
+    private CelestialBody sun;
+    private LightingEngine lighting;
+    private ObjectStore store;
+    private ShadowBuffer shadowBuffer;
+
+    @Setup
+    public void setup() {
+        objects = BenchmarkScenes.randomObjects(objectCount, gridSize);
+        World world = BenchmarkScenes.daytimeWorld(objects);
+        sun = world.getSun();
+        lighting = new LightingEngine();
+        store = ObjectStore.of(objects);
+        shadowBuffer = new ShadowBuffer();
+    }
+
+    @Benchmark
+    public void calculateShadow(Blackhole bh) {
+        for (GameObject obj : objects) {
+            bh.consume(LightingEngine.calculateShadow(obj, sun));
+        }
+    }
+
+    @Benchmark
+    public int updateShadows() {
+        // full relight, the cache would otherwise serve every slot
+        lighting.invalidateAll();
+        lighting.updateShadows(objects, sun);
+        return lighting.getShadowCount();
+    }
+
+    // steady state with a static light and one moved caster per frame
+    @Benchmark
+    public int updateShadowsCached() {
+        objects.get(0).invalidate();
+        lighting.updateShadows(objects, sun);
+        return lighting.getRecomputedCount();
+    }
+
+    @Benchmark
+    public ShadowBuffer bulkKernel() {
+        ShadowKernel.computeShadows(store, sun, shadowBuffer);
+        return shadowBuffer;
+    }
+}
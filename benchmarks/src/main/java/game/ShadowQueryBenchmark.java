@@ -0,0 +1,66 @@
+package game;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// light level of a million random ground points under a mid-morning sun, batched versus one lightAt
+// call per point, and the cost of moving the query to a new sun angle
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShadowQueryBenchmark {
+    private static final double MORNING_ANGLE = 1.25 * Math.PI;
+
+    @Param({ "10000" })
+    int objectCount;
+
+    @Param({ "128" })
+    int gridSize;
+
+    @Param({ "1000000" })
+    int pointCount;
+
+    private ShadowQuery query;
+    private double[] xs;
+    private double[] ys;
+    private float[] out;
+
+    @Setup
+    public void setup() {
+        query = ShadowQuery.of(BenchmarkScenes.randomObjects(objectCount, gridSize), MORNING_ANGLE);
+        Random rand = new Random(BenchmarkScenes.SEED);
+        xs = new double[pointCount];
+        ys = new double[pointCount];
+        out = new float[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            xs[i] = rand.nextDouble() * gridSize;
+            ys[i] = rand.nextDouble() * gridSize;
+        }
+    }
+
+    @Benchmark
+    public float[] batch() {
+        query.lightAt(xs, ys, pointCount, out);
+        return out;
+    }
+
+    @Benchmark
+    public double perPoint() {
+        double sum = 0;
+        for (int i = 0; i < pointCount; i++) {
+            sum += query.lightAt(xs[i], ys[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ShadowQuery setSunAngle() {
+        query.setSunAngle(MORNING_ANGLE);
+        return query;
+    }
+}
@@ -0,0 +1,56 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// cost of keeping a SharedLightingBuffer current: publishing a frame's shadows, and a full lightmap
+// render with and without exporting every tile, the worst case of the per-frame copy
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedBufferBenchmark {
+    @Param({ "1000", "100000" })
+    int objectCount;
+
+    @Param({ "false", "true" })
+    boolean export;
+
+    private static final int SIZE = 1024;
+
+    private LightingEngine lighting;
+    private SharedLightingBuffer buffer;
+    private Lightmap lightmap;
+    private float[] shadows;
+
+    @Setup
+    public void setup() {
+        World world = BenchmarkScenes.daytimeWorld(BenchmarkScenes.randomObjects(objectCount, World.GRID_SIZE));
+        lighting = world.getLighting();
+        buffer = SharedLightingBuffer.allocate(objectCount, SIZE, SIZE);
+        lightmap = new Lightmap(SIZE, SIZE);
+        lightmap.setSharedBuffer(export ? buffer : null);
+        shadows = new float[objectCount * SharedLightingBuffer.SHADOW_FLOATS];
+    }
+
+    @Benchmark
+    public SharedLightingBuffer writeShadows() {
+        buffer.writeShadows(lighting.getAmbientLight(), lighting.getShadows());
+        return buffer;
+    }
+
+    @Benchmark
+    public int readShadows() {
+        return buffer.readShadows(shadows);
+    }
+
+    @Benchmark
+    public Lightmap renderLightmap() {
+        lightmap.invalidate();
+        lightmap.render(lighting.getAmbientLight(), lighting.getShadows());
+        return lightmap;
+    }
+}
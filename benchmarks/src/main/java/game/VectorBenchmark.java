@@ -0,0 +1,69 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+    private Vector2D a2;
+    private Vector2D b2;
+    private Vector3D a3;
+    private Vector3D b3;
+    private Vector3D axis;
+
+    @Setup
+    public void setup() {
+        a2 = new Vector2D(3.5, -1.25);
+        b2 = new Vector2D(-0.75, 2.0);
+        a3 = new Vector3D(3.5, -1.25, 0.5);
+        b3 = new Vector3D(-0.75, 2.0, 1.5);
+        axis = new Vector3D(0, 0, 1);
+    }
+
+    @Benchmark
+    public Vector2D add2D() {
+        return a2.add(b2);
+    }
+
+    @Benchmark
+    public Vector2D normalize2D() {
+        return a2.normalize();
+    }
+
+    // the add/normalize/multiply chain used by shadow and collision code
+    @Benchmark
+    public Vector2D shadowChain2D() {
+        return a2.add(b2.subtract(a2).normalize().multiply(4.0));
+    }
+
+    @Benchmark
+    public double length2D() {
+        return a2.length();
+    }
+
+    @Benchmark
+    public Vector3D add3D() {
+        return a3.add(b3);
+    }
+
+    @Benchmark
+    public Vector3D normalize3D() {
+        return a3.normalize();
+    }
+
+    @Benchmark
+    public Vector3D crossProduct3D() {
+        return a3.crossProduct(b3);
+    }
+
+    @Benchmark
+    public Vector3D rotateAround3D() {
+        return a3.rotateAround(axis, 0.25);
+    }
+}
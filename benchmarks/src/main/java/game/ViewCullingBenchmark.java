@@ -0,0 +1,52 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import static game.World.CELL_SIZE;
+
+// snapshot capture of a large daytime scene, everything versus culled to a camera view at several zooms
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewCullingBenchmark {
+    @Param({ "40000" })
+    int objectCount;
+
+    @Param({ "256" })
+    int gridSize;
+
+    @Param({ "0.0625", "0.25", "1" })
+    double zoom;
+
+    private World world;
+    private ViewCuller culler;
+    private final RenderSnapshot snapshot = new RenderSnapshot();
+
+    @Setup
+    public void setup() {
+        world = BenchmarkScenes.daytimeWorld(BenchmarkScenes.randomObjects(objectCount, gridSize));
+        Camera camera = new Camera();
+        camera.setViewport(World.GRID_SIZE * CELL_SIZE, World.GRID_SIZE * CELL_SIZE);
+        // centre the view over the scene
+        double span = World.GRID_SIZE * CELL_SIZE / zoom;
+        camera.set(gridSize * CELL_SIZE / 2.0 - span / 2, gridSize * CELL_SIZE / 2.0 - span / 2, zoom);
+        culler = new ViewCuller(camera);
+    }
+
+    @Benchmark
+    public RenderSnapshot captureAll() {
+        snapshot.capture(world, 0, 0, 0, 0);
+        return snapshot;
+    }
+
+    @Benchmark
+    public RenderSnapshot captureCulled() {
+        snapshot.capture(world, 0, 0, 0, 0, culler);
+        return snapshot;
+    }
+}
@@ -0,0 +1,36 @@
+package game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// one full simulation + lighting tick; with the gc profiler gc.alloc.rate.norm should read ~0 B/op
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldStepBenchmark {
+    private static final double DELTA_TIME = 1 / 60.0;
+
+    @Param({ "15", "1000", "100000", "1000000" })
+    int objectCount;
+
+    @Param({ "32", "1024" })
+    int gridSize;
+
+    private World world;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkScenes.daytimeWorld(BenchmarkScenes.randomObjects(objectCount, gridSize));
+        world.setInput(World.INPUT_UP | World.INPUT_RIGHT);
+    }
+
+    @Benchmark
+    public World step() {
+        world.step(DELTA_TIME);
+        return world;
+    }
+}
@@ -0,0 +1,65 @@
+package game;
+
+// pan and zoom over the world, in world pixels (grid units * CELL_SIZE). the screen point (sx, sy) shows
+// world point (originX + sx / zoom, originY + sy / zoom). the view thread moves the camera and the
+// simulation thread reads it when culling a snapshot; fields are volatile and a read that straddles an
+// update is off for at most one frame
+public class Camera {
+    static final double MIN_ZOOM = 1 / 64.0;
+    static final double MAX_ZOOM = 8.0;
+
+    private volatile double originX;
+    private volatile double originY;
+    private volatile double zoom = 1.0;
+    private volatile int viewportWidth;
+    private volatile int viewportHeight;
+
+    public void setViewport(int width, int height) {
+        this.viewportWidth = width;
+        this.viewportHeight = height;
+    }
+
+    // moves the view by a screen-space drag
+    public void pan(double screenDx, double screenDy) {
+        double z = zoom;
+        originX -= screenDx / z;
+        originY -= screenDy / z;
+    }
+
+    // scales the zoom by factor, keeping the world point under (screenX, screenY) in place
+    public void zoomAt(double factor, double screenX, double screenY) {
+        double z = zoom;
+        double worldX = originX + screenX / z;
+        double worldY = originY + screenY / z;
+        double next = Math.min(Math.max(z * factor, MIN_ZOOM), MAX_ZOOM);
+        originX = worldX - screenX / next;
+        originY = worldY - screenY / next;
+        zoom = next;
+    }
+
+    public void set(double originX, double originY, double zoom) {
+        this.originX = originX;
+        this.originY = originY;
+        this.zoom = Math.min(Math.max(zoom, MIN_ZOOM), MAX_ZOOM);
+    }
+
+    public double getOriginX() {
+        return originX;
+    }
+
+    public double getOriginY() {
+        return originY;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    public int getViewportWidth() {
+        return viewportWidth;
+    }
+
+    public int getViewportHeight() {
+        return viewportHeight;
+    }
+}
@@ -0,0 +1,36 @@
+package game;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+
+// drag to pan, wheel to zoom around the cursor
+class CameraInput extends MouseAdapter {
+    private static final double ZOOM_STEP = 1.1;
+
+    private final Camera camera;
+    private int lastX;
+    private int lastY;
+
+    CameraInput(Camera camera) {
+        this.camera = camera;
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        lastX = e.getX();
+        lastY = e.getY();
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        camera.pan(e.getX() - lastX, e.getY() - lastY);
+        lastX = e.getX();
+        lastY = e.getY();
+    }
+
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        camera.zoomAt(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+    }
+}
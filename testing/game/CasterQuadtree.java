@@ -0,0 +1,245 @@
+package game;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static game.World.CELL_SIZE;
+
+// quadtree over shadow casters in grid units. the tree is split on caster positions, which only change
+// with the object set, while every node is bounded by its casters' bodies and current shadows. refit()
+// recomputes those bounds bottom-up when the shadows change, so a view query finds exactly the casters
+// whose shadow or body may be on screen. nodes are stored in flat arrays; the non-empty children of a
+// node are consecutive and always come after their parent
+public class CasterQuadtree {
+    static final int LEAF_SIZE = 16;
+    static final int MAX_DEPTH = 20;
+
+    // receives the result of a query; clusters are nodes small enough on screen to be drawn as one
+    interface Visitor {
+        void caster(int index);
+
+        void cluster(int node);
+    }
+
+    int[] items = new int[0]; // object indices, node k owns items[itemStart[k], itemEnd[k])
+    double[] minX = new double[16]; // shadow and body bounds
+    double[] minY = new double[16];
+    double[] maxX = new double[16];
+    double[] maxY = new double[16];
+    double[] positionMinX = new double[16]; // bounds of the caster positions alone
+    double[] positionMinY = new double[16];
+    double[] positionMaxX = new double[16];
+    double[] positionMaxY = new double[16];
+    int[] itemStart = new int[16];
+    int[] itemEnd = new int[16];
+    int[] firstChild = new int[16];
+    int[] childCount = new int[16];
+    int nodeCount;
+
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] radius = new double[0];
+    private double[] itemMinX = new double[0]; // per-object bounds from the last refit
+    private double[] itemMinY = new double[0];
+    private double[] itemMaxX = new double[0];
+    private double[] itemMaxY = new double[0];
+    private int[] scratch = new int[0];
+    private int[] stack = new int[64];
+
+    public void build(List<GameObject> objects) {
+        int n = objects.size();
+        if (items.length < n) {
+            items = new int[n];
+            x = new double[n];
+            y = new double[n];
+            radius = new double[n];
+            itemMinX = new double[n];
+            itemMinY = new double[n];
+            itemMaxX = new double[n];
+            itemMaxY = new double[n];
+            scratch = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            GameObject obj = objects.get(i);
+            items[i] = i;
+            x[i] = obj.getPosition().getX();
+            y[i] = obj.getPosition().getY();
+            radius[i] = obj.getRadius();
+        }
+        nodeCount = 0;
+        int root = allocate();
+        buildNode(root, 0, n, 0);
+    }
+
+    // bounds every caster by its body and its current shadow (null if it casts none), then every node
+    // by its children. children are stored after their parent, so a reverse sweep sees them first
+    void refit(LightingEngine lighting) {
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            double bMinX = Double.POSITIVE_INFINITY, bMinY = Double.POSITIVE_INFINITY;
+            double bMaxX = Double.NEGATIVE_INFINITY, bMaxY = Double.NEGATIVE_INFINITY;
+            if (firstChild[node] < 0) {
+                for (int k = itemStart[node]; k < itemEnd[node]; k++) {
+                    int i = items[k];
+                    fitItem(i, lighting.getShadow(i));
+                    bMinX = Math.min(bMinX, itemMinX[i]);
+                    bMinY = Math.min(bMinY, itemMinY[i]);
+                    bMaxX = Math.max(bMaxX, itemMaxX[i]);
+                    bMaxY = Math.max(bMaxY, itemMaxY[i]);
+                }
+            } else {
+                for (int c = firstChild[node], end = c + childCount[node]; c < end; c++) {
+                    bMinX = Math.min(bMinX, minX[c]);
+                    bMinY = Math.min(bMinY, minY[c]);
+                    bMaxX = Math.max(bMaxX, maxX[c]);
+                    bMaxY = Math.max(bMaxY, maxY[c]);
+                }
+            }
+            minX[node] = bMinX;
+            minY[node] = bMinY;
+            maxX[node] = bMaxX;
+            maxY[node] = bMaxY;
+        }
+    }
+
+    private void fitItem(int i, Shadow shadow) {
+        double bMinX = x[i] - radius[i], bMinY = y[i] - radius[i];
+        double bMaxX = x[i] + radius[i], bMaxY = y[i] + radius[i];
+        if (shadow != null) {
+            // shadow quad in pixels, padded by half its width on every side
+            double pad = shadow.getWidth() / 2;
+            Vector2D start = shadow.getStart();
+            Vector2D end = shadow.getEnd();
+            bMinX = Math.min(bMinX, (Math.min(start.getX(), end.getX()) - pad) / CELL_SIZE);
+            bMinY = Math.min(bMinY, (Math.min(start.getY(), end.getY()) - pad) / CELL_SIZE);
+            bMaxX = Math.max(bMaxX, (Math.max(start.getX(), end.getX()) + pad) / CELL_SIZE);
+            bMaxY = Math.max(bMaxY, (Math.max(start.getY(), end.getY()) + pad) / CELL_SIZE);
+        }
+        itemMinX[i] = bMinX;
+        itemMinY[i] = bMinY;
+        itemMaxX[i] = bMaxX;
+        itemMaxY[i] = bMaxY;
+    }
+
+    public int size() {
+        return nodeCount == 0 ? 0 : itemEnd[0];
+    }
+
+    private void buildNode(int node, int start, int end, int depth) {
+        itemStart[node] = start;
+        itemEnd[node] = end;
+        firstChild[node] = -1;
+        childCount[node] = 0;
+
+        double pMinX = Double.POSITIVE_INFINITY, pMinY = Double.POSITIVE_INFINITY;
+        double pMaxX = Double.NEGATIVE_INFINITY, pMaxY = Double.NEGATIVE_INFINITY;
+        for (int k = start; k < end; k++) {
+            int i = items[k];
+            pMinX = Math.min(pMinX, x[i]);
+            pMinY = Math.min(pMinY, y[i]);
+            pMaxX = Math.max(pMaxX, x[i]);
+            pMaxY = Math.max(pMaxY, y[i]);
+        }
+        positionMinX[node] = pMinX;
+        positionMinY[node] = pMinY;
+        positionMaxX[node] = pMaxX;
+        positionMaxY[node] = pMaxY;
+
+        if (end - start <= LEAF_SIZE || depth >= MAX_DEPTH || (pMinX == pMaxX && pMinY == pMaxY)) {
+            return;
+        }
+
+        // counting sort of the node's items into quadrants around the centre of their positions
+        double cx = (pMinX + pMaxX) / 2, cy = (pMinY + pMaxY) / 2;
+        int[] counts = new int[4];
+        for (int k = start; k < end; k++) {
+            counts[quadrant(items[k], cx, cy)]++;
+        }
+        int[] offsets = new int[4];
+        for (int q = 1; q < 4; q++) {
+            offsets[q] = offsets[q - 1] + counts[q - 1];
+        }
+        for (int k = start; k < end; k++) {
+            int i = items[k];
+            scratch[start + offsets[quadrant(i, cx, cy)]++] = i;
+        }
+        System.arraycopy(scratch, start, items, start, end - start);
+
+        int first = nodeCount;
+        int children = 0;
+        for (int q = 0; q < 4; q++) {
+            if (counts[q] > 0) {
+                allocate();
+                children++;
+            }
+        }
+        firstChild[node] = first;
+        childCount[node] = children;
+        int child = first;
+        int childStart = start;
+        for (int q = 0; q < 4; q++) {
+            if (counts[q] > 0) {
+                buildNode(child++, childStart, childStart + counts[q], depth + 1);
+                childStart += counts[q];
+            }
+        }
+    }
+
+    private int quadrant(int i, double cx, double cy) {
+        return (x[i] < cx ? 0 : 1) | (y[i] < cy ? 0 : 2);
+    }
+
+    private int allocate() {
+        if (nodeCount == minX.length) {
+            int capacity = nodeCount * 2;
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            positionMinX = Arrays.copyOf(positionMinX, capacity);
+            positionMinY = Arrays.copyOf(positionMinY, capacity);
+            positionMaxX = Arrays.copyOf(positionMaxX, capacity);
+            positionMaxY = Arrays.copyOf(positionMaxY, capacity);
+            itemStart = Arrays.copyOf(itemStart, capacity);
+            itemEnd = Arrays.copyOf(itemEnd, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+        }
+        return nodeCount++;
+    }
+
+    // reports every caster whose bounds from the last refit overlap the query rectangle. a node with more
+    // than one caster whose positions span less than clusterExtent is reported once as a cluster instead
+    void visit(double qMinX, double qMinY, double qMaxX, double qMaxY, double clusterExtent, Visitor visitor) {
+        if (nodeCount == 0 || itemEnd[0] == 0) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (maxX[node] < qMinX || maxY[node] < qMinY || minX[node] > qMaxX || minY[node] > qMaxY) {
+                continue;
+            }
+            int count = itemEnd[node] - itemStart[node];
+            if (count > 1 && Math.max(positionMaxX[node] - positionMinX[node],
+                    positionMaxY[node] - positionMinY[node]) < clusterExtent) {
+                visitor.cluster(node);
+            } else if (firstChild[node] < 0) {
+                for (int k = itemStart[node]; k < itemEnd[node]; k++) {
+                    int i = items[k];
+                    if (itemMaxX[i] >= qMinX && itemMaxY[i] >= qMinY
+                            && itemMinX[i] <= qMaxX && itemMinY[i] <= qMaxY) {
+                        visitor.caster(i);
+                    }
+                }
+            } else {
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                for (int c = firstChild[node] + childCount[node] - 1; c >= firstChild[node]; c--) {
+                    stack[top++] = c;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// a CHUNK_SIZE x CHUNK_SIZE cell square of the world and the objects whose position falls inside it
+public class Chunk {
+    // rough heap cost used for the memory budget: the chunk itself plus per object the GameObject,
+    // its position vector, list slot and spatial hash entry
+    static final long BASE_BYTES = 256;
+    static final long BYTES_PER_OBJECT = 160;
+
+    private final int chunkX;
+    private final int chunkY;
+    private final List<GameObject> objects;
+
+    public Chunk(int chunkX, int chunkY) {
+        this(chunkX, chunkY, new ArrayList<>());
+    }
+
+    public Chunk(int chunkX, int chunkY, List<GameObject> objects) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.objects = objects;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkY() {
+        return chunkY;
+    }
+
+    public List<GameObject> getObjects() {
+        return objects;
+    }
+
+    public long estimateBytes() {
+        return BASE_BYTES + objects.size() * BYTES_PER_OBJECT;
+    }
+}
@@ -0,0 +1,182 @@
+package game;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static game.LightingEngine.MAX_SHADOW_REACH;
+
+// streams chunks around a focus point. chunks within activeRadius of the focus chunk are simulated and
+// lit; one extra ring is kept resident so casters just across the border can still shadow the active
+// area. anything else stays resident only while the memory budget allows, evicted least recently used
+public class ChunkManager {
+    public static final int CHUNK_SIZE = 64; // cells per chunk side
+
+    public interface Listener {
+        void chunkLoaded(Chunk chunk);
+
+        void chunkEvicted(Chunk chunk);
+    }
+
+    private final ChunkSource source;
+    private final int activeRadius;
+    private final long memoryBudgetBytes;
+
+    // access-ordered, so iteration starts at the least recently used chunk
+    private final Map<Long, Chunk> resident;
+    private long residentBytes;
+    private Listener listener;
+
+    private int centerX;
+    private int centerY;
+    private boolean centered;
+
+    public ChunkManager(ChunkSource source, int activeRadius, long memoryBudgetBytes) {
+        this.source = source;
+        this.activeRadius = activeRadius;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.resident = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // recenters on the chunk containing (x, y) in cell units; returns true when the active set changed.
+    // staying inside the same chunk is a no-op, so steady-state frames do not touch the map
+    public boolean update(double x, double y) {
+        int cx = chunkCoord(x);
+        int cy = chunkCoord(y);
+        if (centered && cx == centerX && cy == centerY) {
+            return false;
+        }
+        centerX = cx;
+        centerY = cy;
+        centered = true;
+
+        // load or touch the active area and its halo, nearest ring last so it ends up most recent
+        int haloRadius = activeRadius + 1;
+        for (int ring = haloRadius; ring >= 0; ring--) {
+            for (int dy = -ring; dy <= ring; dy++) {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dy)) == ring) {
+                        getOrLoad(cx + dx, cy + dy);
+                    }
+                }
+            }
+        }
+        evictOverBudget();
+        return true;
+    }
+
+    private void evictOverBudget() {
+        Iterator<Chunk> it = resident.values().iterator();
+        while (residentBytes > memoryBudgetBytes && it.hasNext()) {
+            Chunk chunk = it.next();
+            if (distanceToCenter(chunk.getChunkX(), chunk.getChunkY()) <= activeRadius + 1) {
+                continue; // never evict what is being simulated
+            }
+            it.remove();
+            residentBytes -= chunk.estimateBytes();
+            source.store(chunk);
+            if (listener != null) {
+                listener.chunkEvicted(chunk);
+            }
+        }
+    }
+
+    // objects of every active chunk, plus halo objects close enough to the active area for their
+    // shadow to cross into it. order is stable for a given center
+    public void collectCasters(List<GameObject> out) {
+        double minX = (double) (centerX - activeRadius) * CHUNK_SIZE;
+        double minY = (double) (centerY - activeRadius) * CHUNK_SIZE;
+        double maxX = (double) (centerX + activeRadius + 1) * CHUNK_SIZE;
+        double maxY = (double) (centerY + activeRadius + 1) * CHUNK_SIZE;
+
+        int haloRadius = activeRadius + 1;
+        for (int dy = -haloRadius; dy <= haloRadius; dy++) {
+            for (int dx = -haloRadius; dx <= haloRadius; dx++) {
+                Chunk chunk = resident.get(key(centerX + dx, centerY + dy));
+                if (chunk == null) {
+                    continue;
+                }
+                List<GameObject> objects = chunk.getObjects();
+                if (Math.max(Math.abs(dx), Math.abs(dy)) <= activeRadius) {
+                    out.addAll(objects);
+                    continue;
+                }
+                for (int i = 0, n = objects.size(); i < n; i++) {
+                    GameObject obj = objects.get(i);
+                    Vector2D pos = obj.getPosition();
+                    double reach = MAX_SHADOW_REACH + obj.getRadius();
+                    if (pos.getX() > minX - reach && pos.getX() < maxX + reach
+                            && pos.getY() > minY - reach && pos.getY() < maxY + reach) {
+                        out.add(obj);
+                    }
+                }
+            }
+        }
+    }
+
+    // files obj under the chunk containing its position, loading that chunk if needed
+    public void add(GameObject obj) {
+        Vector2D pos = obj.getPosition();
+        Chunk chunk = getOrLoad(chunkCoord(pos.getX()), chunkCoord(pos.getY()));
+        chunk.getObjects().add(obj);
+        residentBytes += Chunk.BYTES_PER_OBJECT;
+    }
+
+    // removes obj from the chunk containing its current position
+    public boolean remove(GameObject obj) {
+        Vector2D pos = obj.getPosition();
+        Chunk chunk = resident.get(key(chunkCoord(pos.getX()), chunkCoord(pos.getY())));
+        if (chunk == null || !chunk.getObjects().remove(obj)) {
+            return false;
+        }
+        residentBytes -= Chunk.BYTES_PER_OBJECT;
+        return true;
+    }
+
+    private Chunk getOrLoad(int cx, int cy) {
+        long key = key(cx, cy);
+        Chunk chunk = resident.get(key);
+        if (chunk == null) {
+            chunk = source.load(cx, cy);
+            resident.put(key, chunk);
+            residentBytes += chunk.estimateBytes();
+            if (listener != null) {
+                listener.chunkLoaded(chunk);
+            }
+        }
+        return chunk;
+    }
+
+    public Chunk getChunk(int chunkX, int chunkY) {
+        return resident.get(key(chunkX, chunkY));
+    }
+
+    public boolean isActive(int chunkX, int chunkY) {
+        return centered && distanceToCenter(chunkX, chunkY) <= activeRadius;
+    }
+
+    public int getResidentCount() {
+        return resident.size();
+    }
+
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    private int distanceToCenter(int chunkX, int chunkY) {
+        return Math.max(Math.abs(chunkX - centerX), Math.abs(chunkY - centerY));
+    }
+
+    static int chunkCoord(double cell) {
+        return (int) Math.floor(cell / CHUNK_SIZE);
+    }
+
+    private static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+}
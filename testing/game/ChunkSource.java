@@ -0,0 +1,10 @@
+package game;
+
+// supplies chunk contents on demand, e.g. from a generator or a map file
+public interface ChunkSource {
+    Chunk load(int chunkX, int chunkY);
+
+    // called before an evicted chunk is dropped, sources that persist edits write it back here
+    default void store(Chunk chunk) {
+    }
+}
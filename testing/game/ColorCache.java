@@ -0,0 +1,81 @@
+package game;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+// bounded cache of lit colours keyed on base rgb and an intensity quantized to 256 levels. the table is
+// 2-way set associative with an lru bit per set, so lookups never allocate and a miss evicts the less
+// recently used of the two candidates
+public class ColorCache {
+    static final int DEFAULT_SETS = 1024;
+    static final int INTENSITY_LEVELS = 256;
+
+    private final int setMask;
+    private final long[] keys; // 2 ways per set, -1 marks an empty way
+    private final Color[] colors;
+    private final boolean[] way1Recent; // per set, true if way 1 was used more recently than way 0
+    private final float[] hsb = new float[3];
+
+    private long hits;
+    private long misses;
+
+    public ColorCache() {
+        this(DEFAULT_SETS);
+    }
+
+    // sets is rounded up to a power of two
+    public ColorCache(int sets) {
+        int size = Integer.highestOneBit(Math.max(sets - 1, 1)) << 1;
+        setMask = size - 1;
+        keys = new long[size * 2];
+        colors = new Color[size * 2];
+        way1Recent = new boolean[size];
+        Arrays.fill(keys, -1L);
+    }
+
+    // base colour with its hsb brightness scaled by intensity in [0, 1]
+    public Color lit(int rgb, double intensity) {
+        int level = (int) Math.round(Math.min(Math.max(intensity, 0), 1) * (INTENSITY_LEVELS - 1));
+        long key = ((long) (rgb & 0xFFFFFF) << 8) | level;
+        int set = mix(key) & setMask;
+        int way0 = set * 2;
+        int way1 = way0 + 1;
+
+        if (keys[way0] == key) {
+            way1Recent[set] = false;
+            hits++;
+            return colors[way0];
+        }
+        if (keys[way1] == key) {
+            way1Recent[set] = true;
+            hits++;
+            return colors[way1];
+        }
+
+        // miss: replace the less recently used way
+        misses++;
+        int victim = way1Recent[set] ? way0 : way1;
+        keys[victim] = key;
+        colors[victim] = computeLit(rgb, level);
+        way1Recent[set] = victim == way1;
+        return colors[victim];
+    }
+
+    private Color computeLit(int rgb, int level) {
+        Color.RGBtoHSB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF, hsb);
+        return Color.getHSBColor(hsb[0], hsb[1], hsb[2] * level / (float) (INTENSITY_LEVELS - 1));
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
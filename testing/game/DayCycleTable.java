@@ -0,0 +1,156 @@
+package game;
+
+import java.util.List;
+
+import static game.World.CELESTIAL_RADIUS;
+import static game.World.CELL_SIZE;
+
+// day-cycle lighting baked over one full orbit of the sun at a fixed number of samples: ambient light,
+// shadow intensity and the shadow end of every static object. at runtime a light angle is mapped to its
+// two neighbouring samples and everything is lerped, so static shadows cost a lookup instead of a
+// per-object shadow calculation
+//
+// the samples use the live model, LightingEngine.calculateShadow with the body where CelestialBody puts it
+// at that angle, and objects added, moved or changed since the bake are lit live. baked shadows therefore
+// differ from live ones only by the lerp between samples, largest for casters near the body's path where
+// the shadow turns fastest, and by the single sample used at a sun/moon handover
+//
+// bodyDirection is a separate 3d model for height-field occlusion: the bodies are directional lights on an
+// orbit tilted by TILT towards the viewer, a body at orbit angle a lying along (cos a, sin a * cos TILT,
+// -sin a * sin TILT) with z pointing up, so it is above the ground exactly when CelestialBody.isVisible()
+public class DayCycleTable {
+    static final double TILT = Math.PI / 4;
+    static final int DEFAULT_SAMPLES = 360;
+
+    private final int samples;
+    private final double[] ambient;
+    private final double[] intensity;
+    private final boolean[] sunActive;
+
+    // baked casters, a slot only applies while its object is still the same version
+    private final int objectCount;
+    private final GameObject[] owners;
+    private final int[] versions;
+    private final float[] endX; // [sample * objectCount + i], shadow end relative to the object in pixels
+    private final float[] endY;
+
+    // runtime selection, written by select() before shadows are read
+    private int sample0;
+    private int sample1;
+    private double t;
+    private double shadowIntensity;
+    private CelestialBody body; // lights objects the table does not hold
+
+    private DayCycleTable(int samples, int objectCount) {
+        this.samples = samples;
+        this.ambient = new double[samples];
+        this.intensity = new double[samples];
+        this.sunActive = new boolean[samples];
+        this.objectCount = objectCount;
+        this.owners = new GameObject[objectCount];
+        this.versions = new int[objectCount];
+        this.endX = new float[samples * objectCount];
+        this.endY = new float[samples * objectCount];
+    }
+
+    // samples ambient and shadows at samples evenly spaced sun angles; memory is 8 bytes per object and
+    // sample, e.g. 1000 objects at 360 samples is under 3 MB
+    public static DayCycleTable bake(List<GameObject> objects, int samples) {
+        if (samples < 2) {
+            throw new IllegalArgumentException("samples must be at least 2: " + samples);
+        }
+        int n = objects.size();
+        DayCycleTable table = new DayCycleTable(samples, n);
+        for (int i = 0; i < n; i++) {
+            table.owners[i] = objects.get(i);
+            table.versions[i] = objects.get(i).getVersion();
+        }
+
+        for (int k = 0; k < samples; k++) {
+            double sunAngle = 2 * Math.PI * k / samples;
+            // the moon trails the sun by half an orbit and takes over while the sun is below the horizon
+            boolean sun = Math.sin(sunAngle) <= 0;
+            double bodyAngle = sun ? sunAngle : sunAngle + Math.PI;
+            // where CelestialBody puts a body on the world's orbit, centred at (CELESTIAL_RADIUS, CELESTIAL_RADIUS)
+            double celestialX = CELESTIAL_RADIUS + CELESTIAL_RADIUS * Math.cos(bodyAngle);
+            double celestialY = CELESTIAL_RADIUS + CELESTIAL_RADIUS * Math.sin(bodyAngle);
+            double celestialHeight = CELESTIAL_RADIUS * Math.sin(bodyAngle);
+
+            table.sunActive[k] = sun;
+            table.ambient[k] = LightingEngine.ambientLight(celestialHeight);
+            table.intensity[k] = LightingEngine.shadowIntensity(celestialHeight);
+
+            int row = k * n;
+            for (int i = 0; i < n; i++) {
+                GameObject obj = objects.get(i);
+                Vector2D pos = obj.getPosition();
+                double toLightX = celestialX - pos.getX() * CELL_SIZE;
+                double toLightY = celestialY - pos.getY() * CELL_SIZE;
+                double toLightLength = Math.sqrt(toLightX * toLightX + toLightY * toLightY);
+                double scale = LightingEngine.shadowScale(obj.getHeight(), toLightLength, celestialHeight);
+                table.endX[row + i] = (float) (toLightX * scale);
+                table.endY[row + i] = (float) (toLightY * scale);
+            }
+        }
+        return table;
+    }
+
+    // unit vector towards a body at orbit angle a, in the tilted occlusion model
+    static MutableVector3D bodyDirection(double angle, MutableVector3D out) {
+        return out.set(Math.cos(angle), Math.sin(angle) * Math.cos(TILT), -Math.sin(angle) * Math.sin(TILT))
+                .normalizeInPlace();
+    }
+
+    // picks the samples around the current light angle. lerping across a sun/moon handover would sweep
+    // shadows through the sky, so there the sample matching the active body is used alone
+    void select(CelestialBody activeBody) {
+        double sunAngle = activeBody.isSun() ? activeBody.getAngle() : activeBody.getAngle() - Math.PI;
+        double position = (sunAngle / (2 * Math.PI)) * samples;
+        position -= Math.floor(position / samples) * samples; // wrap into [0, samples)
+        sample0 = Math.min((int) position, samples - 1);
+        sample1 = (sample0 + 1) % samples;
+        t = position - sample0;
+
+        body = activeBody;
+        boolean sun = activeBody.isSun();
+        if (sunActive[sample0] != sunActive[sample1]) {
+            int keep = sunActive[sample0] == sun ? sample0 : sample1;
+            sample0 = keep;
+            sample1 = keep;
+            t = 0;
+        }
+
+        shadowIntensity = lerp(intensity[sample0], intensity[sample1]);
+    }
+
+    double getAmbientLight() {
+        return lerp(ambient[sample0], ambient[sample1]);
+    }
+
+    // writes the shadow of objects.get(i), from the table if the slot still holds this object and version,
+    // otherwise live from the selected body. returns false if there is no shadow
+    boolean shadow(int i, GameObject obj, Shadow out) {
+        if (i < objectCount && owners[i] == obj && versions[i] == obj.getVersion()) {
+            Vector2D pos = obj.getPosition();
+            double objX = pos.getX() * CELL_SIZE;
+            double objY = pos.getY() * CELL_SIZE;
+            int a = sample0 * objectCount + i;
+            int b = sample1 * objectCount + i;
+            out.set(objX, objY, objX + lerp(endX[a], endX[b]), objY + lerp(endY[a], endY[b]), shadowIntensity);
+            return true;
+        }
+        return LightingEngine.calculateShadow(obj, body, out);
+    }
+
+    private double lerp(double a, double b) {
+        return a + (b - a) * t;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public int getObjectCount() {
+        return objectCount;
+    }
+}
@@ -0,0 +1,233 @@
+package game;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+// writes rendered frames to a directory as a numbered image sequence without encoding on the thread that
+// draws them. frames are drawn into a fixed pool of images, acquire() hands one out and submit() queues it
+// for the encoder threads, which return it to the pool once written, so capturing allocates no images
+// after construction. when every pool image is still waiting to be encoded a lossless capture blocks in
+// acquire() until one is free, which is what an offline render wants; otherwise acquire() returns null
+// and the frame is dropped, so a live view keeps its frame rate when the disk falls behind. an encode
+// error stops the capture, later frames are dropped and close throws the error
+public final class FrameCapture implements Closeable {
+    public enum Format {
+        PNG("png"),
+        RAW("rgb"); // 8-bit r, g, b per pixel, row-major, no header: ffmpeg's rawvideo rgb24
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    static final int DEFAULT_POOL_SIZE = 8;
+
+    // queued once per encoder by close, tells it to exit
+    private static final BufferedImage END = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+
+    private final Path directory;
+    private final Format format;
+    private final int width;
+    private final int height;
+    private final boolean lossless;
+
+    private final BufferedImage[] images;
+    private final int[] frameNumbers; // per pool image, the frame it holds while queued
+    private final BlockingQueue<BufferedImage> free;
+    private final BlockingQueue<BufferedImage> pending;
+    private final Thread[] encoders;
+
+    private int nextFrame; // producer side only
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private volatile IOException failure; // first encode error, capturing stopped there
+    private volatile boolean closed;
+
+    // frames of width x height written to directory, which is created if needed, by encoderCount threads
+    public FrameCapture(Path directory, Format format, int width, int height, int poolSize, int encoderCount,
+            boolean lossless) throws IOException {
+        if (poolSize < 1 || encoderCount < 1) {
+            throw new IllegalArgumentException("pool size and encoder count must be positive");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        this.lossless = lossless;
+
+        images = new BufferedImage[poolSize];
+        frameNumbers = new int[poolSize];
+        free = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            images[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            free.add(images[i]);
+        }
+        pending = new ArrayBlockingQueue<>(poolSize + encoderCount);
+
+        encoders = new Thread[encoderCount];
+        for (int i = 0; i < encoderCount; i++) {
+            encoders[i] = new Thread(this::encodeLoop, "frame encoder " + i);
+            encoders[i].setDaemon(true);
+            encoders[i].start();
+        }
+    }
+
+    // an image to draw the next frame into, or null when the frame is dropped. the image's previous
+    // content is undefined, draw every pixel
+    public BufferedImage acquire() {
+        if (failure != null || closed) {
+            droppedCount.incrementAndGet();
+            return null;
+        }
+        BufferedImage image;
+        if (lossless) {
+            try {
+                image = free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                droppedCount.incrementAndGet();
+                return null;
+            }
+        } else {
+            image = free.poll();
+            if (image == null) {
+                droppedCount.incrementAndGet();
+            }
+        }
+        return image;
+    }
+
+    // queues an image from acquire() as the next frame of the sequence
+    public void submit(BufferedImage image) {
+        frameNumbers[slot(image)] = nextFrame++;
+        pending.add(image); // never full, it has room for the whole pool
+    }
+
+    // counts a frame that was not drawn at all, for example because the view no longer matches the size
+    public void skip() {
+        droppedCount.incrementAndGet();
+    }
+
+    private int slot(BufferedImage image) {
+        for (int i = 0; i < images.length; i++) {
+            if (images[i] == image) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("image is not from this capture");
+    }
+
+    private void encodeLoop() {
+        byte[] raw = format == Format.RAW ? new byte[width * height * 3] : null;
+        while (true) {
+            BufferedImage image;
+            try {
+                image = pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (image == END) {
+                return;
+            }
+            if (failure == null) {
+                try {
+                    write(image, frameNumbers[slot(image)], raw);
+                    writtenCount.incrementAndGet();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+            free.add(image);
+        }
+    }
+
+    private synchronized void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private void write(BufferedImage image, int frame, byte[] raw) throws IOException {
+        Path path = directory.resolve(String.format("frame-%06d.%s", frame, format.extension));
+        if (format == Format.PNG) {
+            if (!ImageIO.write(image, "png", path.toFile())) {
+                throw new IOException("no png writer available");
+            }
+            return;
+        }
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0, b = 0; i < pixels.length; i++) {
+            int rgb = pixels[i];
+            raw[b++] = (byte) (rgb >> 16);
+            raw[b++] = (byte) (rgb >> 8);
+            raw[b++] = (byte) rgb;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(raw);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // frames submitted so far
+    public int getFrameCount() {
+        return nextFrame;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    // waits for the frames submitted so far to be written, then stops the encoders. frames acquired after
+    // this are dropped
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < encoders.length; i++) {
+            pending.add(END);
+        }
+        try {
+            for (Thread encoder : encoders) {
+                encoder.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while finishing the capture", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// per-phase frame timing. the simulation thread records the tick phases and the render thread the draw
+// passes, each phase into its own histogram, and the totals are exposed through jmx, jfr events
+// (game.Tick / game.Frame, only allocated while a recording is running) and GameWorld's overlay
+public class FrameStats implements FrameStatsMXBean {
+    // simulation phases, recorded by World.step
+    public static final int INPUT = 0;
+    public static final int PLAYER_UPDATE = 1;
+    public static final int STREAMING = 2;
+    public static final int COLLISION = 3;
+    public static final int LIGHTING = 4;
+    public static final int MOVERS = 5;
+
+    // draw passes, recorded by SceneRenderer
+    public static final int DRAW_LIGHTMAP = 6;
+    public static final int DRAW_OBJECTS = 7;
+    public static final int DRAW_CELESTIAL = 8;
+    public static final int DRAW_PLAYER = 9;
+
+    static final int PHASE_COUNT = 10;
+    static final String[] PHASE_NAMES = { "input", "player", "streaming", "collision", "lighting", "movers",
+            "draw lightmap", "draw objects", "draw celestial", "draw player" };
+
+    static final String OBJECT_NAME = "game:type=FrameStats";
+
+    private static final EventType TICK_EVENT = EventType.getEventType(TickEvent.class);
+    private static final EventType FRAME_EVENT = EventType.getEventType(FrameEvent.class);
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASE_COUNT];
+    private final long[] lastNanos = new long[PHASE_COUNT]; // durations of the current tick/frame
+
+    // allocation is sampled from the simulation thread at the start and end of each tick
+    private final com.sun.management.ThreadMXBean threads;
+    private long allocationMark = -1;
+
+    private volatile long tickCount;
+    private volatile long frameCount;
+    private volatile int shadowCount;
+    private volatile int recomputedShadowCount;
+    private volatile long allocatedLastTick;
+    private volatile long allocatedTotal;
+
+    public FrameStats() {
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        threads = bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                        ? (com.sun.management.ThreadMXBean) bean
+                        : null;
+    }
+
+    // registers this instance with the platform mbean server under OBJECT_NAME
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    public void record(int phase, long nanos) {
+        histograms[phase].record(nanos);
+        lastNanos[phase] = nanos;
+    }
+
+    void beginTick() {
+        allocationMark = threads == null ? -1 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    void endTick(int shadows, int recomputed) {
+        long allocated = 0;
+        if (allocationMark >= 0) {
+            allocated = threads.getCurrentThreadAllocatedBytes() - allocationMark;
+        }
+        shadowCount = shadows;
+        recomputedShadowCount = recomputed;
+        allocatedLastTick = allocated;
+        allocatedTotal += allocated;
+        tickCount++;
+
+        if (TICK_EVENT.isEnabled()) {
+            TickEvent event = new TickEvent();
+            event.input = lastNanos[INPUT];
+            event.player = lastNanos[PLAYER_UPDATE];
+            event.streaming = lastNanos[STREAMING];
+            event.collision = lastNanos[COLLISION];
+            event.lighting = lastNanos[LIGHTING];
+            event.movers = lastNanos[MOVERS];
+            event.shadowCount = shadows;
+            event.recomputedShadows = recomputed;
+            event.allocated = allocated;
+            event.commit();
+        }
+    }
+
+    void endFrame() {
+        frameCount++;
+
+        if (FRAME_EVENT.isEnabled()) {
+            FrameEvent event = new FrameEvent();
+            event.lightmap = lastNanos[DRAW_LIGHTMAP];
+            event.objects = lastNanos[DRAW_OBJECTS];
+            event.celestial = lastNanos[DRAW_CELESTIAL];
+            event.player = lastNanos[DRAW_PLAYER];
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getHistogram(int phase) {
+        return histograms[phase];
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public int getShadowCount() {
+        return shadowCount;
+    }
+
+    @Override
+    public int getRecomputedShadowCount() {
+        return recomputedShadowCount;
+    }
+
+    @Override
+    public long getAllocatedBytesLastTick() {
+        return allocatedLastTick;
+    }
+
+    @Override
+    public double getAllocatedBytesPerTick() {
+        long ticks = tickCount;
+        return ticks == 0 ? 0 : (double) allocatedTotal / ticks;
+    }
+
+    @Override
+    public PhaseTiming[] getPhaseTimings() {
+        PhaseTiming[] timings = new PhaseTiming[PHASE_COUNT];
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            LatencyHistogram h = histograms[i];
+            timings[i] = new PhaseTiming(PHASE_NAMES[i], h.getCount(), h.getPercentile(0.5) / 1e3,
+                    h.getPercentile(0.99) / 1e3, h.getMax() / 1e3);
+        }
+        return timings;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram h : histograms) {
+            h.reset();
+        }
+        tickCount = 0;
+        frameCount = 0;
+        allocatedTotal = 0;
+    }
+
+    @Name("game.Tick")
+    @Label("Simulation Tick")
+    @Category("Lighting Simulation")
+    static final class TickEvent extends Event {
+        @Timespan
+        long input;
+        @Timespan
+        long player;
+        @Timespan
+        long streaming;
+        @Timespan
+        long collision;
+        @Timespan
+        long lighting;
+        @Timespan
+        long movers;
+        int shadowCount;
+        int recomputedShadows;
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("game.Frame")
+    @Label("Render Frame")
+    @Category("Lighting Simulation")
+    static final class FrameEvent extends Event {
+        @Timespan
+        long lightmap;
+        @Timespan
+        long objects;
+        @Timespan
+        long celestial;
+        @Timespan
+        long player;
+    }
+}
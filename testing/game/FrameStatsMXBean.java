@@ -0,0 +1,22 @@
+package game;
+
+// management view of FrameStats, registered as game:type=FrameStats
+public interface FrameStatsMXBean {
+    long getTickCount();
+
+    long getFrameCount();
+
+    // shadows cast and recomputed by the last tick
+    int getShadowCount();
+
+    int getRecomputedShadowCount();
+
+    // heap bytes allocated by the simulation thread during the last tick and on average
+    long getAllocatedBytesLastTick();
+
+    double getAllocatedBytesPerTick();
+
+    PhaseTiming[] getPhaseTimings();
+
+    void reset();
+}
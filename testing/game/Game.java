@@ -1,16 +1,179 @@
-package game;
-
-import javax.swing.*;
-
-public class Game {
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            JFrame frame = new JFrame("lighting prototype");
-            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.add(new GameWorld());
-            frame.pack();
-            frame.setLocationRelativeTo(null);
-            frame.setVisible(true);
-        });
-    }
-}
\ No newline at end of file
+package game;
+
+import javax.management.JMException;
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class Game {
+    private static final int CROWD_SIZE = 300;
+    private static final long CROWD_SEED = 7L;
+
+    // arguments: [--active] [--stats] [--lights] [--baked] [--crowd] [--record log] [--shared file]
+    // [--capture dir | --capture-raw dir] [--budget ms] [snapshot path].
+    // --active renders through GameCanvas' BufferStrategy instead of Swing repaints; --stats records
+    // per-phase timings, registers them over jmx and shows the overlay (F3 toggles it); --lights gives the
+    // player a lantern and adds two fixed point lights; --baked lights the scene from a precomputed
+    // DayCycleTable; --crowd adds wandering movers stepped on every core; --record writes the session to
+    // an InputLog that Replay re-runs headless; --shared maps a SharedLightingBuffer at file that other
+    // processes can open() to follow the shadows and lightmap; --capture writes the frames shown to dir as
+    // png files, --capture-raw as raw rgb, dropping frames rather than slowing the view when the encoders
+    // fall behind (Replay captures a recorded session losslessly); --budget spreads shadow and lightmap
+    // relights over frames at up to ms of each per frame, nearest the player first; a snapshot path loads
+    // that scene instead of the random sample
+    public static void main(String[] args) throws IOException, JMException {
+        boolean active = false;
+        int sceneFlags = 0;
+        FrameStats stats = null;
+        String recordPath = null;
+        String sharedPath = null;
+        String capturePath = null;
+        double lightingBudget = 0;
+        FrameCapture.Format captureFormat = FrameCapture.Format.PNG;
+        String snapshotPath = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--active")) {
+                active = true;
+            } else if (arg.equals("--baked")) {
+                sceneFlags |= InputLog.SCENE_BAKED;
+            } else if (arg.equals("--crowd")) {
+                sceneFlags |= InputLog.SCENE_CROWD;
+            } else if (arg.equals("--lights")) {
+                sceneFlags |= InputLog.SCENE_LIGHTS;
+            } else if (arg.equals("--record") && i + 1 < args.length) {
+                recordPath = args[++i];
+            } else if (arg.equals("--capture") && i + 1 < args.length) {
+                capturePath = args[++i];
+                captureFormat = FrameCapture.Format.PNG;
+            } else if (arg.equals("--capture-raw") && i + 1 < args.length) {
+                capturePath = args[++i];
+                captureFormat = FrameCapture.Format.RAW;
+            } else if (arg.equals("--budget") && i + 1 < args.length) {
+                lightingBudget = Double.parseDouble(args[++i]);
+            } else if (arg.equals("--shared") && i + 1 < args.length) {
+                sharedPath = args[++i];
+            } else if (arg.equals("--stats")) {
+                stats = new FrameStats();
+                stats.register();
+            } else {
+                snapshotPath = arg;
+                sceneFlags |= InputLog.SCENE_SNAPSHOT;
+            }
+        }
+        if (recordPath != null && lightingBudget > 0) {
+            // budgeted relights depend on wall-clock time, so Replay could not reproduce the session
+            System.err.println("--record cannot be combined with --budget");
+            System.exit(2);
+        }
+        long seed = new Random().nextLong();
+        World world = createWorld(seed, sceneFlags, snapshotPath);
+        InputRecorder recorder = recordPath == null ? null
+                : new InputRecorder(Paths.get(recordPath), seed, sceneFlags);
+        if (recorder != null) {
+            // the log is complete once the window closes and the vm exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "input recorder"));
+        }
+        int viewSize = World.GRID_SIZE * World.CELL_SIZE;
+        SharedLightingBuffer sharedBuffer = sharedPath == null ? null
+                : SharedLightingBuffer.create(Paths.get(sharedPath), world.getObjects().size(), viewSize, viewSize);
+        FrameCapture capture = capturePath == null ? null
+                : new FrameCapture(Paths.get(capturePath), captureFormat, viewSize, viewSize,
+                        FrameCapture.DEFAULT_POOL_SIZE, captureEncoders(), false);
+        if (capture != null) {
+            // frames still queued are written before the vm exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    capture.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "frame capture"));
+        }
+        boolean activeRendering = active;
+        double budget = lightingBudget;
+        FrameStats frameStats = stats;
+
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("lighting prototype");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            if (activeRendering) {
+                GameCanvas canvas = new GameCanvas(world);
+                if (frameStats != null) {
+                    canvas.setStats(frameStats);
+                }
+                if (sharedBuffer != null) {
+                    canvas.setSharedBuffer(sharedBuffer);
+                }
+                canvas.setCapture(capture);
+                canvas.setLightingBudget(budget);
+                canvas.getSimulation().setRecorder(recorder);
+                frame.add(canvas);
+                frame.pack();
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+                canvas.start();
+                canvas.requestFocus();
+            } else {
+                GameWorld view = new GameWorld(world);
+                if (frameStats != null) {
+                    view.setStats(frameStats);
+                    view.setStatsOverlay(true);
+                }
+                if (sharedBuffer != null) {
+                    view.setSharedBuffer(sharedBuffer);
+                }
+                view.setCapture(capture);
+                view.setLightingBudget(budget);
+                view.getSimulation().setRecorder(recorder);
+                frame.add(view);
+                frame.pack();
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+                view.start();
+            }
+        });
+    }
+
+    // leaves the simulation and render threads a core each
+    static int captureEncoders() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+    }
+
+    // builds the world a session starts from. everything here is deterministic in seed, the InputLog
+    // scene flags and the snapshot, so Replay rebuilds exactly the world a recording began with
+    static World createWorld(long seed, int sceneFlags, String snapshotPath) throws IOException {
+        World world = (sceneFlags & InputLog.SCENE_SNAPSHOT) != 0
+                ? new World(WorldSnapshot.read(Paths.get(snapshotPath)).toObjects())
+                : new World(seed);
+        if ((sceneFlags & InputLog.SCENE_BAKED) != 0) {
+            world.getLighting().setDayCycle(DayCycleTable.bake(world.getObjects(), DayCycleTable.DEFAULT_SAMPLES));
+            world.updateLighting();
+        }
+        if ((sceneFlags & InputLog.SCENE_LIGHTS) != 0) {
+            world.setPlayerLight(new PointLight(new Vector2D(0, 0), 4.0, 6.0, 1.5, 0.9, 0xFFD27F));
+            world.addLight(new PointLight(new Vector2D(World.GRID_SIZE * 0.25, World.GRID_SIZE * 0.25), 4.0, 5.0,
+                    2.0, 1.0, 0x7FB2FF));
+            world.addLight(new PointLight(new Vector2D(World.GRID_SIZE * 0.75, World.GRID_SIZE * 0.3), 5.0, 8.0,
+                    1.0, 0.7, 0xFF7F7F));
+            world.updateLighting();
+        }
+        if ((sceneFlags & InputLog.SCENE_CROWD) != 0) {
+            Random rand = new Random(CROWD_SEED);
+            for (int i = 0; i < CROWD_SIZE; i++) {
+                double x = 1 + rand.nextDouble() * (World.GRID_SIZE - 2);
+                double y = 1 + rand.nextDouble() * (World.GRID_SIZE - 2);
+                world.addMover(x, y, 1.2 + rand.nextDouble() * 0.8, 0.25, World.randomLightRgb(rand));
+            }
+            world.getMoverSystems().setParallelism(Runtime.getRuntime().availableProcessors());
+        }
+        return world;
+    }
+}
@@ -0,0 +1,133 @@
+package game;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
+
+// active-rendering alternative to GameWorld: a heavyweight canvas drawn by its own render thread into a
+// BufferStrategy flip chain, bypassing the Swing repaint manager. drawing is shared via SceneRenderer
+public class GameCanvas extends Canvas implements Runnable {
+    private static final int GRID_SIZE = World.GRID_SIZE;
+    private static final int CELL_SIZE = World.CELL_SIZE;
+    private static final long FRAME_NANOS = 16_000_000L; // 60 FPS
+    private static final int BUFFERS = 2;
+
+    private final World world;
+    private final SimulationLoop simulation;
+    private final SceneRenderer renderer = new SceneRenderer();
+    private final Camera camera = new Camera(); // drag to pan, wheel to zoom
+
+    private volatile boolean running;
+    private Thread renderThread;
+
+    public GameCanvas(World world) {
+        setPreferredSize(new Dimension(GRID_SIZE * CELL_SIZE, GRID_SIZE * CELL_SIZE));
+        setBackground(Color.WHITE);
+        setIgnoreRepaint(true);
+
+        this.world = world;
+        simulation = new SimulationLoop(world);
+        simulation.setCamera(camera);
+        simulation.publishNow();
+
+        // input handling
+        setFocusable(true);
+        addKeyListener(new KeyInput(simulation));
+        CameraInput cameraInput = new CameraInput(camera);
+        addMouseListener(cameraInput);
+        addMouseMotionListener(cameraInput);
+        addMouseWheelListener(cameraInput);
+    }
+
+    // the canvas must be displayable (added to a packed frame) before starting
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        createBufferStrategy(BUFFERS);
+        simulation.start();
+        running = true;
+        renderThread = new Thread(this, "render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        simulation.stop();
+    }
+
+    public SimulationLoop getSimulation() {
+        return simulation;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public Camera getCamera() {
+        return camera;
+    }
+
+    // publishes shadows from the simulation and the lightmap from every frame into buffer, call before
+    // start()
+    public void setSharedBuffer(SharedLightingBuffer sharedBuffer) {
+        world.setSharedBuffer(sharedBuffer);
+        renderer.setSharedBuffer(sharedBuffer);
+    }
+
+    // spreads relights of shadows and the lightmap over frames, at most millis of each per update and
+    // frame, nearest the player first; 0 relights everything at once. call before start()
+    public void setLightingBudget(double millis) {
+        world.getLighting().setTimeBudget(millis);
+        renderer.setLightmapBudget(millis);
+    }
+
+    // sends every drawn frame to capture, see SceneRenderer.setCapture; call before start()
+    public void setCapture(FrameCapture capture) {
+        renderer.setCapture(capture);
+    }
+
+    // instruments both the simulation and the draw passes, call before start()
+    public void setStats(FrameStats stats) {
+        world.setStats(stats);
+        renderer.setStats(stats);
+    }
+
+    @Override
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        while (running) {
+            long frameStart = System.nanoTime();
+            RenderSnapshot snapshot = simulation.latestSnapshot();
+            int width = getWidth();
+            int height = getHeight();
+            camera.setViewport(width, height);
+
+            // a captured frame is drawn and submitted once per rendered frame, restored surfaces only blit it
+            // again. frames run on their own clock, so the capture may repeat or skip simulation ticks
+            BufferedImage frame = renderer.captureFrame(snapshot, width, height);
+
+            // repeat until a frame has been shown without its surfaces being lost or restored
+            do {
+                do {
+                    Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+                    try {
+                        if (frame != null) {
+                            g2d.drawImage(frame, 0, 0, null);
+                        } else {
+                            renderer.draw(g2d, snapshot, width, height);
+                        }
+                    } finally {
+                        g2d.dispose();
+                    }
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+
+            LockSupport.parkNanos(FRAME_NANOS - (System.nanoTime() - frameStart));
+        }
+    }
+}
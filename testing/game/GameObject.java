@@ -1,34 +1,57 @@
-// GameObject.java
-package game;
-
-import java.awt.Color;
-
-public class GameObject {
-    private Vector2D position;
-    private double height;
-    private double radius;
-    private Color color;
-
-    public GameObject(Vector2D position, double height, Color color) {
-        this.position = position;
-        this.height = height;
-        this.radius = 0.5;
-        this.color = color;
-    }
-
-    public Vector2D getPosition() {
-        return position;
-    }
-
-    public double getHeight() {
-        return height;
-    }
-
-    public double getRadius() {
-        return radius;
-    }
-
-    public Color getColor() {
-        return color;
-    }
+// GameObject.java
+package game;
+
+public class GameObject {
+    private Vector2D position;
+    private double height;
+    private double radius;
+    private int rgb; // packed 0xRRGGBB
+    private int version; // bumped on every change that affects lighting
+
+    public GameObject(Vector2D position, double height, int rgb) {
+        this(position, height, 0.5, rgb);
+    }
+
+    public GameObject(Vector2D position, double height, double radius, int rgb) {
+        this.position = position;
+        this.height = height;
+        this.radius = radius;
+        this.rgb = rgb;
+    }
+
+    public Vector2D getPosition() {
+        return position;
+    }
+
+    // callers that index objects spatially must refile the object afterwards, see World.moveObject
+    public void setPosition(Vector2D position) {
+        this.position = position;
+        invalidate();
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public void setHeight(double height) {
+        this.height = height;
+        invalidate();
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public int getRgb() {
+        return rgb;
+    }
+
+    // marks state derived from this object, such as its cached shadow, as stale
+    public void invalidate() {
+        version++;
+    }
+
+    public int getVersion() {
+        return version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package game;
+
+import java.util.Arrays;
+import java.util.List;
+
+// per-cell maximum object height over a fixed rectangle of the world, with a max-height mip pyramid on
+// top. level k stores the maximum of each 2x2 block of level k - 1, so a ray towards the light can step
+// over a whole block as soon as it is above the block's maximum. rays over open ground climb to coarse
+// levels quickly and an occlusion query visits O(log n) nodes instead of every cell on the way
+public class HeightField {
+    static final double DEFAULT_CELL_SIZE = 0.5; // grid units per heightfield cell
+    private static final double HEIGHT_EPSILON = 1e-4; // absorbs float rounding of stored heights
+    private static final double STEP_EPSILON = 1e-9; // nudges the ray past a node boundary
+
+    private final double originX;
+    private final double originY;
+    private final double cellSize;
+    private final int size; // cells per side of level 0, a power of two
+    private final int levels;
+    private final float[][] mips; // mips[k] is (size >> k) squared, row-major
+
+    // covers [originX, originX + width) x [originY, originY + height) in grid units
+    public HeightField(double originX, double originY, double width, double height, double cellSize) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = cellSize;
+        int cells = (int) Math.ceil(Math.max(width, height) / cellSize);
+        this.size = Math.max(1, Integer.highestOneBit(Math.max(cells - 1, 1)) << 1);
+        this.levels = Integer.numberOfTrailingZeros(size) + 1;
+        this.mips = new float[levels][];
+        for (int k = 0; k < levels; k++) {
+            int side = size >> k;
+            mips[k] = new float[side * side];
+        }
+    }
+
+    // field over the default map, built from objects
+    public static HeightField of(List<GameObject> objects) {
+        HeightField field = new HeightField(0, 0, World.GRID_SIZE, World.GRID_SIZE, DEFAULT_CELL_SIZE);
+        field.build(objects);
+        return field;
+    }
+
+    // rasterizes every object's square footprint (half-size getRadius()) at its height, then rebuilds the
+    // pyramid. objects outside the covered rectangle are clipped
+    public void build(List<GameObject> objects) {
+        float[] base = mips[0];
+        Arrays.fill(base, 0f);
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            GameObject obj = objects.get(i);
+            Vector2D pos = obj.getPosition();
+            double r = obj.getRadius();
+            int minX = Math.max(0, (int) Math.floor((pos.getX() - r - originX) / cellSize));
+            int maxX = Math.min(size - 1, (int) Math.ceil((pos.getX() + r - originX) / cellSize) - 1);
+            int minY = Math.max(0, (int) Math.floor((pos.getY() - r - originY) / cellSize));
+            int maxY = Math.min(size - 1, (int) Math.ceil((pos.getY() + r - originY) / cellSize) - 1);
+            float h = (float) obj.getHeight();
+            for (int y = minY; y <= maxY; y++) {
+                int row = y * size;
+                for (int x = minX; x <= maxX; x++) {
+                    if (h > base[row + x]) {
+                        base[row + x] = h;
+                    }
+                }
+            }
+        }
+
+        for (int k = 1; k < levels; k++) {
+            float[] fine = mips[k - 1];
+            float[] coarse = mips[k];
+            int side = size >> k;
+            int fineSide = side << 1;
+            for (int y = 0; y < side; y++) {
+                for (int x = 0; x < side; x++) {
+                    int f = (y << 1) * fineSide + (x << 1);
+                    coarse[y * side + x] = Math.max(Math.max(fine[f], fine[f + 1]),
+                            Math.max(fine[f + fineSide], fine[f + fineSide + 1]));
+                }
+            }
+        }
+    }
+
+    // true if the ray from (x, y, z) towards the unit direction (dx, dy, dz) passes below the top of any
+    // cell. dz <= 0 means the light is at or below the horizon and everything is occluded
+    public boolean isOccluded(double x, double y, double z, double dx, double dy, double dz) {
+        if (dz <= 0) {
+            return true;
+        }
+        double planar = Math.sqrt(dx * dx + dy * dy);
+        if (planar == 0) {
+            return false; // light straight overhead, nothing above the point's own column
+        }
+
+        // march in level-0 cell units: s is horizontal distance, the ray rises by rise per cell
+        double px = (x - originX) / cellSize;
+        double py = (y - originY) / cellSize;
+        double ux = dx / planar;
+        double uy = dy / planar;
+        double rise = dz / planar * cellSize;
+        double top = mips[levels - 1][0];
+
+        double s = 0;
+        int level = levels - 1;
+        while (true) {
+            double cx = px + ux * s;
+            double cy = py + uy * s;
+            double h = z + rise * s;
+            if (cx < 0 || cy < 0 || cx >= size || cy >= size || h >= top) {
+                return false;
+            }
+
+            int nodeX = (int) cx >> level;
+            int nodeY = (int) cy >> level;
+            int side = size >> level;
+            // the ray only climbs, so clearing the node at entry clears all of it
+            if (mips[level][nodeY * side + nodeX] <= h + HEIGHT_EPSILON) {
+                double nodeSize = 1 << level;
+                double exitX = ux > 0 ? ((nodeX + 1) * nodeSize - cx) / ux
+                        : ux < 0 ? (nodeX * nodeSize - cx) / ux : Double.POSITIVE_INFINITY;
+                double exitY = uy > 0 ? ((nodeY + 1) * nodeSize - cy) / uy
+                        : uy < 0 ? (nodeY * nodeSize - cy) / uy : Double.POSITIVE_INFINITY;
+                s += Math.min(exitX, exitY) + STEP_EPSILON;
+                if (level < levels - 1) {
+                    level++;
+                }
+            } else if (level == 0) {
+                return true;
+            } else {
+                level--;
+            }
+        }
+    }
+
+    // occlusion towards a celestial body, using the same 3d body direction as DayCycleTable
+    public boolean isOccluded(double x, double y, double z, CelestialBody body, MutableVector3D scratch) {
+        DayCycleTable.bodyDirection(body.getAngle(), scratch);
+        return isOccluded(x, y, z, scratch.getX(), scratch.getY(), scratch.getZ());
+    }
+
+    // maximum height of the level-0 cell containing (x, y), 0 outside the field
+    public double heightAt(double x, double y) {
+        int cx = (int) Math.floor((x - originX) / cellSize);
+        int cy = (int) Math.floor((y - originY) / cellSize);
+        if (cx < 0 || cy < 0 || cx >= size || cy >= size) {
+            return 0;
+        }
+        return mips[0][cy * size + cx];
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+}
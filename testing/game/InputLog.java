@@ -0,0 +1,133 @@
+package game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// a recorded session: how its world was built, then the input and delta of every tick in order. layout,
+// little-endian:
+//   header (32 bytes): magic "LGTI", int version, long scene seed, int scene flags, 12 reserved bytes
+//   runs until end of file: byte tag, [double delta], varint length
+// a run repeats one input for length ticks. the tag holds the World input bits, with DELTA_FOLLOWS set
+// when the run's delta differs from the previous run's. a fixed-rate session with occasional key changes
+// costs two or three bytes per change, written by InputRecorder
+public final class InputLog {
+    static final int MAGIC = 0x4C475449; // "LGTI"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    static final int DELTA_FOLLOWS = 0x80;
+    static final int INPUT_MASK = 0x0F;
+
+    // scene flags, how Game set up the world before the first tick
+    public static final int SCENE_SNAPSHOT = 1; // objects were loaded from a WorldSnapshot, not the seed
+    public static final int SCENE_LIGHTS = 1 << 1;
+    public static final int SCENE_BAKED = 1 << 2;
+    public static final int SCENE_CROWD = 1 << 3;
+
+    private final long seed;
+    private final int flags;
+    private final byte[] inputs;
+    private final double[] deltas;
+
+    private InputLog(long seed, int flags, byte[] inputs, double[] deltas) {
+        this.seed = seed;
+        this.flags = flags;
+        this.inputs = inputs;
+        this.deltas = deltas;
+    }
+
+    // decodes the whole session up front, so replaying it costs no parsing
+    public static InputLog read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("not an input log: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("not an input log: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported input log version " + version + ": " + path);
+        }
+        long seed = buffer.getLong();
+        int flags = buffer.getInt();
+        buffer.position(HEADER_BYTES);
+
+        byte[] inputs = new byte[1024];
+        double[] deltas = new double[1024];
+        int ticks = 0;
+        double delta = Double.NaN;
+        try {
+            while (buffer.hasRemaining()) {
+                int tag = buffer.get() & 0xFF;
+                if ((tag & DELTA_FOLLOWS) != 0) {
+                    delta = buffer.getDouble();
+                } else if (Double.isNaN(delta)) {
+                    throw new IOException("input log run without a delta: " + path);
+                }
+                int length = readVarint(buffer);
+                if (length < 0 || ticks + length < ticks) {
+                    throw new IOException("corrupt input log: " + path);
+                }
+                if (ticks + length > inputs.length) {
+                    int capacity = Math.max(ticks + length, inputs.length * 2);
+                    inputs = Arrays.copyOf(inputs, capacity);
+                    deltas = Arrays.copyOf(deltas, capacity);
+                }
+                Arrays.fill(inputs, ticks, ticks + length, (byte) (tag & INPUT_MASK));
+                Arrays.fill(deltas, ticks, ticks + length, delta);
+                ticks += length;
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated input log: " + path, e);
+        }
+        return new InputLog(seed, flags, Arrays.copyOf(inputs, ticks), Arrays.copyOf(deltas, ticks));
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    public int getTickCount() {
+        return inputs.length;
+    }
+
+    // World input bitmask of tick i
+    public int getInput(int i) {
+        return inputs[i];
+    }
+
+    public double getDelta(int i) {
+        return deltas[i];
+    }
+}
@@ -0,0 +1,121 @@
+package game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// writes an InputLog as the session runs. ticks are merged into runs in memory and a run only reaches
+// the buffer once the input or delta changes, so recording a steady tick is a couple of compares; the
+// buffer is written out when full and on close. called from the simulation thread, closed from any. a
+// write error never reaches the simulation: recording stops and the error is thrown by flush or close
+public final class InputRecorder implements Closeable {
+    private static final int BUFFER_BYTES = 8192;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    // run being accumulated
+    private int runInput = -1;
+    private long runDeltaBits;
+    private int runLength;
+    private long writtenDeltaBits; // delta of the last run written
+    private boolean deltaWritten;
+    private long tickCount;
+    private boolean closed;
+    private IOException failure; // first write error, recording stopped there
+
+    // starts a log for a world built from seed with the given InputLog scene flags
+    public InputRecorder(Path path, long seed, int sceneFlags) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(InputLog.MAGIC).putInt(InputLog.VERSION).putLong(seed).putInt(sceneFlags);
+        buffer.position(InputLog.HEADER_BYTES);
+    }
+
+    // one tick stepped with input (World input bits) and deltaTime seconds
+    public synchronized void record(int input, double deltaTime) {
+        if (closed || failure != null) {
+            return;
+        }
+        long deltaBits = Double.doubleToLongBits(deltaTime);
+        input &= InputLog.INPUT_MASK;
+        if (input != runInput || deltaBits != runDeltaBits || runLength == Integer.MAX_VALUE) {
+            try {
+                writeRun();
+            } catch (IOException e) {
+                failure = e;
+                return;
+            }
+            runInput = input;
+            runDeltaBits = deltaBits;
+        }
+        runLength++;
+        tickCount++;
+    }
+
+    public synchronized long getTickCount() {
+        return tickCount;
+    }
+
+    private void writeRun() throws IOException {
+        if (runLength == 0) {
+            return;
+        }
+        // tag, delta and a 5-byte varint at most
+        if (buffer.remaining() < 1 + Double.BYTES + 5) {
+            drain();
+        }
+        boolean newDelta = !deltaWritten || runDeltaBits != writtenDeltaBits;
+        buffer.put((byte) (runInput | (newDelta ? InputLog.DELTA_FOLLOWS : 0)));
+        if (newDelta) {
+            buffer.putLong(runDeltaBits);
+            writtenDeltaBits = runDeltaBits;
+            deltaWritten = true;
+        }
+        int length = runLength;
+        while ((length & ~0x7F) != 0) {
+            buffer.put((byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+        runLength = 0;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // writes the pending run and everything buffered, the log then holds every tick recorded so far
+    public synchronized void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        writeRun();
+        drain();
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package game;
+
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.HashSet;
+import java.util.Set;
+
+// maps WASD key state to the World input bitmask and forwards it to the simulation on every change
+class KeyInput extends KeyAdapter {
+    private final SimulationLoop simulation;
+    private final Set<Integer> pressedKeys = new HashSet<>();
+
+    KeyInput(SimulationLoop simulation) {
+        this.simulation = simulation;
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        pressedKeys.add(e.getKeyCode());
+        simulation.setInput(toInput());
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        pressedKeys.remove(e.getKeyCode());
+        simulation.setInput(toInput());
+    }
+
+    private int toInput() {
+        int input = 0;
+        if (pressedKeys.contains(KeyEvent.VK_W))
+            input |= World.INPUT_UP;
+        if (pressedKeys.contains(KeyEvent.VK_S))
+            input |= World.INPUT_DOWN;
+        if (pressedKeys.contains(KeyEvent.VK_A))
+            input |= World.INPUT_LEFT;
+        if (pressedKeys.contains(KeyEvent.VK_D))
+            input |= World.INPUT_RIGHT;
+        return input;
+    }
+}
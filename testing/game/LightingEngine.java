@@ -0,0 +1,549 @@
+package game;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static game.World.CELESTIAL_RADIUS;
+import static game.World.CELL_SIZE;
+import static game.World.GRID_SIZE;
+
+// computes ambient light and per-object shadows for a world without touching any rendering code
+public class LightingEngine {
+    // lighting system constants
+    static final double MIN_SHADOW_INTENSITY = 0.2;
+    static final double MAX_SHADOW_LENGTH = GRID_SIZE / 2.0;
+    static final double SHADOW_WIDTH = 20; // width of shadow quads in pixels
+
+    // furthest a shadow can reach from its caster, in cells: max length plus half the quad width
+    static final double MAX_SHADOW_REACH = (MAX_SHADOW_LENGTH + SHADOW_WIDTH / 2) / CELL_SIZE;
+
+    // radians the light may move before cached shadows are recomputed, see angleTolerance
+    static final double DEFAULT_ANGLE_TOLERANCE = 0.02;
+
+    // scenes smaller than this are never split across threads
+    static final int DEFAULT_SEQUENTIAL_CUTOFF = 4096;
+
+    // a time-sliced relight orders objects into rings this many grid units wide around the focus, the
+    // last ring holds everything further out
+    static final double PASS_RING_WIDTH = 1.0;
+    static final int PASS_RINGS = 256;
+    // slots refreshed between budget checks
+    static final int PASS_BATCH = 512;
+
+    // slot i holds the shadow of objects.get(i); slots are pre-sized and reused so workers never share
+    // a mutable container and a steady-state frame allocates nothing
+    private Shadow[] shadowSlots;
+    private boolean[] hasShadow;
+    private GameObject[] cachedOwners; // object and version each slot was computed for
+    private int[] cachedVersions;
+    private Shadow[] activeShadows; // compacted view of the slots that cast a shadow this frame
+    private int shadowCount;
+    private final List<Shadow> shadowView;
+    private double ambientLight;
+
+    // shadow cache: slots are only recomputed when their object changed or the light moved past the
+    // tolerance. the bodies turn 1 rad/s, so at 60 ticks/s the default 0.02 rad relights every other tick.
+    // its cost, measured over a grid of casters and sun angles: shadow ends are 0.3px off on average and
+    // 1.6% of them more than 1px, up to a full MAX_SHADOW_LENGTH turn for a caster the body passes right
+    // over. 0 relights on every angle change and gives exact shadows
+    private CelestialBody cachedBody;
+    private double cachedAngle;
+    private double angleTolerance;
+    private int recomputedCount;
+    private int shadowsVersion; // bumped by every update that changed at least one shadow
+    private int updatedCount; // object count of the last update
+
+    // time slicing: with a budget a relight of every slot runs as a pass over several updates, refreshing
+    // the slots nearest the focus first and stopping once the update has used its budget. slots the pass
+    // has not reached keep their previous shadow, so a frame shows fresh shadows around the focus and
+    // stale ones further out, and the lightmap only reshades the tiles of the refreshed ring. without a
+    // budget (the default) every slot is relit in the update that needs it
+    private long budgetNanos;
+    private double focusX; // grid units
+    private double focusY;
+    private int[] passOrder = new int[0]; // slot indices by ring
+    private int[] passRings = new int[0]; // ring of each slot, scratch for the sort
+    private final int[] ringStarts = new int[PASS_RINGS + 1];
+    private int passLength; // objects in the running pass, 0 when none is running
+    private int passCursor;
+
+    // point lights and the shadows they cast, rebuilt every update from the objects near each light
+    private final PointLightBuffer pointLights = new PointLightBuffer();
+    private final List<GameObject> nearby = new ArrayList<>();
+
+    // baked day cycle, null computes every shadow from the live body position
+    private DayCycleTable dayCycle;
+
+    // heightfield occlusion of object tops, null leaves every object fully lit
+    private HeightField heightField;
+    private float[] objectLight = new float[0];
+    private int objectLightCount;
+    private int objectLightVersion; // bumped whenever an entry of objectLight changes
+    private final MutableVector3D lightDirection = new MutableVector3D();
+
+    // parallel mode, null pool means every update runs on the calling thread
+    private ForkJoinPool pool;
+    private int sequentialCutoff;
+
+    public LightingEngine() {
+        shadowSlots = new Shadow[0];
+        hasShadow = new boolean[0];
+        cachedOwners = new GameObject[0];
+        cachedVersions = new int[0];
+        activeShadows = new Shadow[0];
+        sequentialCutoff = DEFAULT_SEQUENTIAL_CUTOFF;
+        angleTolerance = DEFAULT_ANGLE_TOLERANCE;
+        shadowView = new AbstractList<Shadow>() {
+            @Override
+            public Shadow get(int index) {
+                return activeShadows[index];
+            }
+
+            @Override
+            public int size() {
+                return shadowCount;
+            }
+        };
+    }
+
+    // parallelism <= 1 switches back to sequential updates
+    public void setParallelism(int parallelism) {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    // also the leaf size of the fork-join split
+    public void setSequentialCutoff(int sequentialCutoff) {
+        this.sequentialCutoff = Math.max(1, sequentialCutoff);
+    }
+
+    // radians the light may move before cached shadows are recomputed
+    public void setAngleTolerance(double angleTolerance) {
+        this.angleTolerance = Math.max(0, angleTolerance);
+    }
+
+    public double getAngleTolerance() {
+        return angleTolerance;
+    }
+
+    // milliseconds of shadow work per update before a relight is continued on the next one, 0 turns time
+    // slicing off. results then depend on timing, so replays and benchmarks that compare hashes leave it off
+    public void setTimeBudget(double millis) {
+        budgetNanos = (long) (Math.max(0, millis) * 1e6);
+        if (budgetNanos == 0) {
+            passLength = 0;
+        }
+    }
+
+    public double getTimeBudget() {
+        return budgetNanos / 1e6;
+    }
+
+    // point, in grid units, that time-sliced relights start from, usually the player or the camera centre
+    public void setFocus(double x, double y) {
+        focusX = x;
+        focusY = y;
+    }
+
+    // slots still waiting for the running time-sliced relight, 0 when none is running
+    public int getStaleCount() {
+        return passLength - passCursor;
+    }
+
+    // switches to baked ambient and shadows interpolated from the table, null goes back to live lighting
+    public void setDayCycle(DayCycleTable dayCycle) {
+        this.dayCycle = dayCycle;
+        invalidateAll();
+    }
+
+    public DayCycleTable getDayCycle() {
+        return dayCycle;
+    }
+
+    // shades object tops that a taller neighbour hides from the active body, null turns it off
+    public void setHeightField(HeightField heightField) {
+        this.heightField = heightField;
+        objectLightVersion++;
+    }
+
+    public HeightField getHeightField() {
+        return heightField;
+    }
+
+    // forces every shadow to be recomputed on the next update
+    public void invalidateAll() {
+        cachedBody = null;
+    }
+
+    public void update(List<GameObject> objects, CelestialBody activeCelestialBody) {
+        // calc ambient light
+        if (dayCycle != null) {
+            dayCycle.select(activeCelestialBody);
+            ambientLight = dayCycle.getAmbientLight();
+        } else {
+            double celestialHeight = activeCelestialBody.getPosition().getY() - (GRID_SIZE * CELL_SIZE / 2.0);
+            ambientLight = ambientLight(celestialHeight);
+        }
+
+        // update shadows
+        updateShadows(objects, activeCelestialBody);
+        updateObjectLight(objects, activeCelestialBody);
+    }
+
+    // an occluded top is darkened by the same amount the lightmap darkens ground under a shadow
+    private void updateObjectLight(List<GameObject> objects, CelestialBody body) {
+        int n = objects.size();
+        if (objectLight.length < n) {
+            objectLight = Arrays.copyOf(objectLight, n);
+        }
+        boolean changed = n != objectLightCount;
+        if (heightField == null) {
+            for (int i = 0; i < n; i++) {
+                changed |= objectLight[i] != 1f;
+                objectLight[i] = 1f;
+            }
+        } else {
+            DayCycleTable.bodyDirection(body.getAngle(), lightDirection);
+            double dx = lightDirection.getX(), dy = lightDirection.getY(), dz = lightDirection.getZ();
+            float shaded = (float) (1 - Math.min(0.5 * shadowIntensity(body.getPosition().getY()
+                    - GRID_SIZE * CELL_SIZE / 2.0), 1.0));
+            for (int i = 0; i < n; i++) {
+                GameObject obj = objects.get(i);
+                Vector2D pos = obj.getPosition();
+                float light = heightField.isOccluded(pos.getX(), pos.getY(), obj.getHeight(), dx, dy, dz)
+                        ? shaded : 1f;
+                changed |= objectLight[i] != light;
+                objectLight[i] = light;
+            }
+        }
+        objectLightCount = n;
+        if (changed) {
+            objectLightVersion++;
+        }
+    }
+
+    // culls casters per light through the spatial index, so each light only considers objects within its
+    // radius. lights move freely, so their shadows are recomputed every update
+    public void updatePointLights(List<PointLight> lights, SpatialHash index) {
+        pointLights.clear();
+        for (int l = 0, n = lights.size(); l < n; l++) {
+            PointLight light = lights.get(l);
+            Vector2D pos = light.getPosition();
+            pointLights.addLight(pos.getX() * CELL_SIZE, pos.getY() * CELL_SIZE, light.getRadius() * CELL_SIZE,
+                    light.getFalloff(), light.getIntensity(), light.getRgb());
+
+            nearby.clear();
+            index.queryRadius(pos.getX(), pos.getY(), light.getRadius(), nearby);
+            for (int i = 0, count = nearby.size(); i < count; i++) {
+                if (calculateShadow(nearby.get(i), light, pointLights.nextShadow())) {
+                    pointLights.commitShadow();
+                }
+            }
+        }
+    }
+
+    void updateShadows(List<GameObject> objects, CelestialBody celestialBody) {
+        long start = budgetNanos > 0 ? System.nanoTime() : 0;
+        int n = objects.size();
+        ensureCapacity(n);
+
+        // a moved or switched light invalidates every slot, otherwise only changed objects are redone
+        boolean switched = celestialBody != cachedBody;
+        boolean relightAll = switched || angleDistance(celestialBody.getAngle(), cachedAngle) > angleTolerance;
+        if (relightAll) {
+            cachedBody = celestialBody;
+            cachedAngle = celestialBody.getAngle();
+        }
+        if (budgetNanos > 0) {
+            // a running pass finishes with the light as it moves on; only a switch or a different object
+            // list restarts it, from the focus
+            if (switched || (relightAll && passLength == 0) || (passLength > 0 && n != passLength)) {
+                startPass(objects);
+            }
+            relightAll = false;
+        }
+
+        recomputedCount = computeRange(objects, celestialBody, 0, n, relightAll, null);
+        if (passLength > 0) {
+            continuePass(objects, celestialBody, start);
+        }
+
+        if (recomputedCount > 0 || n != updatedCount) {
+            shadowsVersion++;
+        }
+        updatedCount = n;
+
+        // compact on the calling thread, keeps object order stable between modes
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (hasShadow[i]) {
+                activeShadows[count++] = shadowSlots[i];
+            }
+        }
+        shadowCount = count;
+    }
+
+    // refreshes the slots of the running pass in ring order until the update started at start has used
+    // its budget, at least one batch per update so a pass always finishes
+    private void continuePass(List<GameObject> objects, CelestialBody celestialBody, long start) {
+        int batch = pool == null ? PASS_BATCH : PASS_BATCH * pool.getParallelism();
+        do {
+            int to = Math.min(passCursor + batch, passLength);
+            recomputedCount += computeRange(objects, celestialBody, passCursor, to, true, passOrder);
+            passCursor = to;
+        } while (passCursor < passLength && System.nanoTime() - start < budgetNanos);
+        if (passCursor == passLength) {
+            passLength = 0;
+        }
+    }
+
+    // counting sort of the slots into rings around the focus
+    private void startPass(List<GameObject> objects) {
+        int n = objects.size();
+        if (passOrder.length < n) {
+            passOrder = new int[n];
+            passRings = new int[n];
+        }
+        Arrays.fill(ringStarts, 0);
+        for (int i = 0; i < n; i++) {
+            passRings[i] = ring(objects.get(i));
+            ringStarts[passRings[i] + 1]++;
+        }
+        for (int r = 0; r < PASS_RINGS; r++) {
+            ringStarts[r + 1] += ringStarts[r];
+        }
+        for (int i = 0; i < n; i++) {
+            passOrder[ringStarts[passRings[i]]++] = i;
+        }
+        passLength = n;
+        passCursor = 0;
+    }
+
+    private int ring(GameObject obj) {
+        Vector2D pos = obj.getPosition();
+        double dx = pos.getX() - focusX;
+        double dy = pos.getY() - focusY;
+        return (int) Math.min(Math.sqrt(dx * dx + dy * dy) / PASS_RING_WIDTH, PASS_RINGS - 1);
+    }
+
+    // returns the number of slots actually recomputed. order maps positions in [from, to) to slots, null
+    // for slots from to to themselves
+    private int computeRange(List<GameObject> objects, CelestialBody celestialBody, int from, int to,
+            boolean relightAll, int[] order) {
+        if (pool != null && to - from >= sequentialCutoff) {
+            ShadowTask task = new ShadowTask(objects, celestialBody, from, to, relightAll, order);
+            pool.invoke(task);
+            return task.recomputed;
+        }
+        return computeSlots(objects, celestialBody, from, to, relightAll, order);
+    }
+
+    private int computeSlots(List<GameObject> objects, CelestialBody celestialBody, int from, int to,
+            boolean relightAll, int[] order) {
+        int recomputed = 0;
+        for (int k = from; k < to; k++) {
+            int i = order == null ? k : order[k];
+            GameObject obj = objects.get(i);
+            if (!relightAll && cachedOwners[i] == obj && cachedVersions[i] == obj.getVersion()) {
+                continue;
+            }
+            if (dayCycle != null) {
+                hasShadow[i] = dayCycle.shadow(i, obj, shadowSlots[i]);
+            } else {
+                hasShadow[i] = calculateShadow(obj, celestialBody, shadowSlots[i]);
+            }
+            cachedOwners[i] = obj;
+            cachedVersions[i] = obj.getVersion();
+            recomputed++;
+        }
+        return recomputed;
+    }
+
+    private static double angleDistance(double a, double b) {
+        double d = Math.abs(a - b) % (2 * Math.PI);
+        return Math.min(d, 2 * Math.PI - d);
+    }
+
+    private void ensureCapacity(int n) {
+        if (shadowSlots.length >= n) {
+            return;
+        }
+        int oldLength = shadowSlots.length;
+        shadowSlots = Arrays.copyOf(shadowSlots, n);
+        for (int i = oldLength; i < n; i++) {
+            shadowSlots[i] = new Shadow();
+        }
+        hasShadow = Arrays.copyOf(hasShadow, n);
+        cachedOwners = Arrays.copyOf(cachedOwners, n);
+        cachedVersions = Arrays.copyOf(cachedVersions, n);
+        activeShadows = new Shadow[n];
+    }
+
+    // splits [from, to) in halves until ranges fit under the sequential cutoff
+    private final class ShadowTask extends RecursiveAction {
+        private final List<GameObject> objects;
+        private final CelestialBody celestialBody;
+        private final int from;
+        private final int to;
+        private final boolean relightAll;
+        private final int[] order;
+        int recomputed;
+
+        ShadowTask(List<GameObject> objects, CelestialBody celestialBody, int from, int to, boolean relightAll,
+                int[] order) {
+            this.objects = objects;
+            this.celestialBody = celestialBody;
+            this.from = from;
+            this.to = to;
+            this.relightAll = relightAll;
+            this.order = order;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= sequentialCutoff) {
+                recomputed = computeSlots(objects, celestialBody, from, to, relightAll, order);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            ShadowTask left = new ShadowTask(objects, celestialBody, from, mid, relightAll, order);
+            ShadowTask right = new ShadowTask(objects, celestialBody, mid, to, relightAll, order);
+            invokeAll(left, right);
+            recomputed = left.recomputed + right.recomputed;
+        }
+    }
+
+    static Shadow calculateShadow(GameObject obj, CelestialBody celestialBody) {
+        Shadow shadow = new Shadow();
+        return calculateShadow(obj, celestialBody, shadow) ? shadow : null;
+    }
+
+    // writes the shadow of obj into out, returns false if the body casts no shadow
+    static boolean calculateShadow(GameObject obj, CelestialBody celestialBody, Shadow out) {
+        if (!celestialBody.isVisible()) {
+            return false;
+        }
+
+        Vector2D objPos = obj.getPosition();
+        Vector2D celestialPos = celestialBody.getPosition();
+        double objX = objPos.getX() * CELL_SIZE;
+        double objY = objPos.getY() * CELL_SIZE;
+        double toLightX = celestialPos.getX() - objX;
+        double toLightY = celestialPos.getY() - objY;
+        double toLightLength = Math.sqrt(toLightX * toLightX + toLightY * toLightY);
+
+        // shadow starts at the object and extends along the line to the body, see shadowScale
+        double celestialHeight = celestialPos.getY() - (GRID_SIZE * CELL_SIZE / 2.0);
+        double scale = shadowScale(obj.getHeight(), toLightLength, celestialHeight);
+        out.set(objX, objY, objX + toLightX * scale, objY + toLightY * scale, shadowIntensity(celestialHeight));
+        return true;
+    }
+
+    // the sun and moon shadow model, shared by calculateShadow, ShadowKernel and MoverShadows: a caster of
+    // height cells whose vector to the body is toLightLength pixels long ends its shadow at caster + toLight *
+    // scale. the body is at or below the orbit centre while visible, so the scale is negative (the shadow
+    // points away from the light, also with the body exactly on the horizon) and grows without bound near
+    // the horizon; its length is capped at MAX_SHADOW_LENGTH so shadows stay within
+    // MAX_SHADOW_REACH. branch-free so the ShadowKernel loop stays straight-line: a caster under the body has
+    // toLightLength 0 and an infinite cap, and the finite bound keeps its end at the caster instead of
+    // 0 * infinity when the body is also on the horizon
+    static double shadowScale(double height, double toLightLength, double celestialHeight) {
+        double magnitude = (height * CELL_SIZE) / (Math.abs(celestialHeight) * 2.0);
+        return -Math.min(Math.min(magnitude, MAX_SHADOW_LENGTH / toLightLength), Double.MAX_VALUE);
+    }
+
+    // ambient light for a body at celestialHeight pixels from the orbit centre
+    static double ambientLight(double celestialHeight) {
+        double ambientFactor = 0.8 * (celestialHeight / CELESTIAL_RADIUS);
+        return Math.min(Math.max(0.2 + ambientFactor, 0), 1.0);
+    }
+
+    static double shadowIntensity(double celestialHeight) {
+        double intensity = 1.0 - (celestialHeight / CELESTIAL_RADIUS);
+        return Math.max(MIN_SHADOW_INTENSITY, intensity);
+    }
+
+    // shadow of obj away from a point light, ending where the light's reach ends. returns false if the
+    // object is outside the radius or directly under the light
+    static boolean calculateShadow(GameObject obj, PointLight light, Shadow out) {
+        Vector2D objPos = obj.getPosition();
+        Vector2D lightPos = light.getPosition();
+        double objX = objPos.getX() * CELL_SIZE;
+        double objY = objPos.getY() * CELL_SIZE;
+        double awayX = objX - lightPos.getX() * CELL_SIZE;
+        double awayY = objY - lightPos.getY() * CELL_SIZE;
+        double distance = Math.sqrt(awayX * awayX + awayY * awayY);
+        double reach = light.getRadius() * CELL_SIZE - distance;
+        if (distance == 0 || reach <= 0) {
+            return false;
+        }
+
+        // similar triangles: a caster of height h at distance d from a light at height H shadows
+        // d * h / (H - h) of ground; as tall as the light or taller, the shadow runs out of light first
+        double heightAbove = light.getHeight() - obj.getHeight();
+        double shadowLength = heightAbove > 0 ? distance * obj.getHeight() / heightAbove : reach;
+        shadowLength = Math.min(shadowLength, reach);
+
+        double dirX = awayX / distance;
+        double dirY = awayY / distance;
+        out.set(objX, objY, objX + dirX * shadowLength, objY + dirY * shadowLength, 1.0);
+        return true;
+    }
+
+    public double getAmbientLight() {
+        return ambientLight;
+    }
+
+    public int getShadowCount() {
+        return shadowCount;
+    }
+
+    // changes whenever an update recomputed any shadow, lets views cache anything derived from them
+    public int getShadowsVersion() {
+        return shadowsVersion;
+    }
+
+    // slots recomputed by the last update, the rest were served from the cache
+    public int getRecomputedCount() {
+        return recomputedCount;
+    }
+
+    // shadow of the object at index i of the last updated list, null if it casts none
+    Shadow getShadow(int i) {
+        return i < shadowSlots.length && hasShadow[i] ? shadowSlots[i] : null;
+    }
+
+    // live view over this frame's shadows, valid until the next update
+    List<Shadow> getShadows() {
+        return shadowView;
+    }
+
+    // brightness of the top of objects.get(i), 1 when lit
+    float getObjectLight(int i) {
+        return objectLight[i];
+    }
+
+    // changes whenever any object light changes, lets views cache the object layer
+    public int getObjectLightVersion() {
+        return objectLightVersion;
+    }
+
+    // point lights and their shadows from the last updatePointLights, valid until the next one
+    PointLightBuffer getPointLights() {
+        return pointLights;
+    }
+
+    public int getPointLightShadowCount() {
+        return pointLights.totalShadows;
+    }
+}
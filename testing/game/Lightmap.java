@@ -0,0 +1,703 @@
+package game;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static game.World.CELL_SIZE;
+import static game.World.GRID_SIZE;
+
+// software rasterizer for the lit ground layer: ambient background, grid and shadow quads are written
+// straight into the int[] behind a BufferedImage, so a frame costs one drawImage instead of a Java2D
+// paint per shadow. the image is split into fixed-size tiles; shadows are binned into every tile their
+// quad overlaps and tiles are shaded independently, optionally in parallel. each tile only writes its
+// own pixels, so workers share the framebuffer without locks. a tile whose ambient colour and binned
+// shadows match the previous frame is left untouched, so only regions with moving shadows are re-shaded;
+// that saves cpu shading only, the caller still blits the whole image every frame.
+// point lights are culled the same way: each is binned into the tiles its radius overlaps, and a tile
+// only evaluates the lights in its bin, masking each by that light's own shadows. inputs are in world
+// pixels and mapped through the view set by setView(), the identity by default
+public class Lightmap {
+    static final int GRID_RGB = 0xE6E6E6; // grid lines are not affected by ambient light
+    static final int TILE_SIZE = 64;
+    static final int FALLOFF_STEPS = 256; // attenuation table resolution over squared distance / radius^2
+    static final double MIN_GRID_SPACING = 4; // grid lines closer than this many pixels are not drawn
+
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int[] shade; // per-pixel shadow alpha 0..255, overlapping shadows take the max
+    private final boolean[] gridColumn;
+    private final boolean[] gridRow;
+
+    // view transform: screen = (world - origin) * zoom. a non-identity view maps the inputs into the
+    // screen-space copies below before binning
+    private double viewOriginX;
+    private double viewOriginY;
+    private double viewZoom = 1.0;
+    private Shadow[] viewShadows = new Shadow[0];
+    private int viewShadowCount;
+    private final List<Shadow> viewShadowList = new AbstractList<Shadow>() {
+        @Override
+        public Shadow get(int index) {
+            return viewShadows[index];
+        }
+
+        @Override
+        public int size() {
+            return viewShadowCount;
+        }
+    };
+    private final PointLightBuffer viewLights = new PointLightBuffer();
+
+    // point light accumulation, like shade each tile only touches its own pixels
+    private final int[] occlusion; // alpha of the current light's shadows, 255 blocks it fully
+    private final int[] lightR;
+    private final int[] lightG;
+    private final int[] lightB;
+
+    // tile bins: indices into the current shadow list, rebuilt every frame
+    private final int tilesX;
+    private final int tilesY;
+    private final int[][] bins;
+    private final int[] binCounts;
+    private final long[] tileSignatures; // ambient and shadow geometry each tile was last shaded with
+    private final boolean[] tileDirty;
+    private final int[][] lightBins;
+    private final int[] lightBinCounts;
+    private boolean fullRedraw = true;
+    private int dirtyTileCount;
+
+    // time slicing: with a budget, lighting changes are reshaded nearest the focus first and the render
+    // stops taking tiles once it has used the budget. the others keep their stale pixels and stay pending
+    // for the next render, so a relight of the whole ground fades in ring by ring instead of costing one
+    // long frame. redraws for a new view or size ignore the budget, stale pixels would be misplaced
+    private long budgetNanos;
+    private double focusX; // screen pixels
+    private double focusY;
+    private final boolean[] tilePending;
+    private final int[] tileOrder; // dirty tiles by ring around the focus
+    private final int[] ringStarts;
+    private int pendingTileCount;
+
+    // optional off-heap copy of the pixels, updated with the tiles each render reshades
+    private SharedLightingBuffer sharedBuffer;
+
+    // per-frame inputs read by tile workers
+    private List<Shadow> shadows;
+    private int ambientRgb;
+    private PointLightBuffer lights;
+    private float[][] falloffTables = new float[0][]; // attenuation per light, indexed by squared distance
+
+    // shaded colour for every shadow alpha 0..255, rebuilt only when the ambient colour changes
+    private final int[] ambientShades = new int[256];
+    private final int[] gridShades = new int[256];
+    private int shadesAmbientRgb = -1;
+
+    // parallel mode, null pool means tiles are shaded on the calling thread
+    private ForkJoinPool pool;
+
+    public Lightmap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.shade = new int[width * height];
+        this.occlusion = new int[width * height];
+        this.lightR = new int[width * height];
+        this.lightG = new int[width * height];
+        this.lightB = new int[width * height];
+        this.gridColumn = new boolean[width];
+        this.gridRow = new boolean[height];
+        updateGrid();
+
+        this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        this.bins = new int[tilesX * tilesY][8];
+        this.binCounts = new int[tilesX * tilesY];
+        this.tileSignatures = new long[tilesX * tilesY];
+        this.tileDirty = new boolean[tilesX * tilesY];
+        this.tilePending = new boolean[tilesX * tilesY];
+        this.tileOrder = new int[tilesX * tilesY];
+        this.ringStarts = new int[tilesX + tilesY + 1];
+        this.lightBins = new int[tilesX * tilesY][4];
+        this.lightBinCounts = new int[tilesX * tilesY];
+    }
+
+    // parallelism <= 1 shades tiles on the calling thread
+    public void setParallelism(int parallelism) {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    public void render(double ambientLight, List<Shadow> shadows) {
+        render(ambientLight, shadows, null);
+    }
+
+    // maps world pixels to screen pixels as (world - origin) * zoom for the following renders
+    public void setView(double originX, double originY, double zoom) {
+        if (originX == viewOriginX && originY == viewOriginY && zoom == viewZoom) {
+            return;
+        }
+        viewOriginX = originX;
+        viewOriginY = originY;
+        viewZoom = zoom;
+        updateGrid();
+        fullRedraw = true;
+    }
+
+    // milliseconds of tile shading per render before lighting changes are continued on the next one, 0
+    // turns time slicing off
+    public void setTimeBudget(double millis) {
+        budgetNanos = (long) (Math.max(0, millis) * 1e6);
+    }
+
+    public double getTimeBudget() {
+        return budgetNanos / 1e6;
+    }
+
+    // screen point that time-sliced renders reshade outwards from
+    public void setFocus(double x, double y) {
+        focusX = x;
+        focusY = y;
+    }
+
+    // lights may be null for a scene lit only by the active celestial body
+    void render(double ambientLight, List<Shadow> shadows, PointLightBuffer lights) {
+        long start = budgetNanos > 0 ? System.nanoTime() : 0;
+        if (viewOriginX != 0 || viewOriginY != 0 || viewZoom != 1.0) {
+            shadows = toView(shadows);
+            lights = lights == null ? null : toView(lights);
+        }
+        this.shadows = shadows;
+        this.lights = lights != null && lights.count > 0 ? lights : null;
+        // same rounding as new Color(float, float, float)
+        this.ambientRgb = (channel(0.9 * ambientLight) << 16) | (channel(0.9 * ambientLight) << 8)
+                | channel(1.0 * ambientLight);
+
+        updateShades();
+        binShadows();
+        binLights();
+        int tileCount = tilesX * tilesY;
+        markDirtyTiles();
+        if (budgetNanos > 0 && !fullRedraw) {
+            shadeWithinBudget(start);
+        } else if (pool == null) {
+            for (int tile = 0; tile < tileCount; tile++) {
+                if (tileDirty[tile]) {
+                    shadeTile(tile);
+                }
+            }
+        } else {
+            pool.invoke(new TileTask(null, 0, tileCount));
+        }
+        this.shadows = null;
+        this.lights = null;
+        fullRedraw = false;
+        if (sharedBuffer != null) {
+            exportDirtyTiles();
+        }
+    }
+
+    // copies every render's reshaded tiles into buffer, starting with the whole image on the next render;
+    // null stops exporting
+    public void setSharedBuffer(SharedLightingBuffer sharedBuffer) {
+        this.sharedBuffer = sharedBuffer;
+        fullRedraw = true;
+    }
+
+    public SharedLightingBuffer getSharedBuffer() {
+        return sharedBuffer;
+    }
+
+    private void exportDirtyTiles() {
+        long sequence = sharedBuffer.beginLightmap();
+        for (int tile = 0, n = tilesX * tilesY; tile < n; tile++) {
+            if (tileDirty[tile]) {
+                int minX = (tile % tilesX) * TILE_SIZE;
+                int minY = (tile / tilesX) * TILE_SIZE;
+                sharedBuffer.writeLightmap(pixels, width, minX, minY, Math.min(minX + TILE_SIZE, width) - 1,
+                        Math.min(minY + TILE_SIZE, height) - 1);
+            }
+        }
+        sharedBuffer.endLightmap(sequence);
+    }
+
+    // forces every tile to be shaded on the next render
+    public void invalidate() {
+        fullRedraw = true;
+    }
+
+    // tiles shaded by the last render
+    public int getDirtyTileCount() {
+        return dirtyTileCount;
+    }
+
+    // tiles a time-sliced render left stale for the next one
+    public int getPendingTileCount() {
+        return pendingTileCount;
+    }
+
+    public int getTileCount() {
+        return tilesX * tilesY;
+    }
+
+    private List<Shadow> toView(List<Shadow> source) {
+        int n = source.size();
+        if (viewShadows.length < n) {
+            int oldLength = viewShadows.length;
+            viewShadows = Arrays.copyOf(viewShadows, n);
+            for (int i = oldLength; i < n; i++) {
+                viewShadows[i] = new Shadow();
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            toView(source.get(i), viewShadows[i]);
+        }
+        viewShadowCount = n;
+        return viewShadowList;
+    }
+
+    private PointLightBuffer toView(PointLightBuffer source) {
+        viewLights.clear();
+        for (int i = 0; i < source.count; i++) {
+            viewLights.addLight((source.x[i] - viewOriginX) * viewZoom, (source.y[i] - viewOriginY) * viewZoom,
+                    source.radius[i] * viewZoom, source.falloff[i], source.intensity[i], source.rgb[i]);
+            for (int s = source.shadowStart[i], end = s + source.shadowCount[i]; s < end; s++) {
+                toView(source.shadows[s], viewLights.nextShadow());
+                viewLights.commitShadow();
+            }
+        }
+        return viewLights;
+    }
+
+    private void toView(Shadow shadow, Shadow out) {
+        Vector2D start = shadow.getStart();
+        Vector2D end = shadow.getEnd();
+        out.set((start.getX() - viewOriginX) * viewZoom, (start.getY() - viewOriginY) * viewZoom,
+                (end.getX() - viewOriginX) * viewZoom, (end.getY() - viewOriginY) * viewZoom,
+                shadow.getIntensity());
+        out.setWidth(shadow.getWidth() * viewZoom);
+    }
+
+    private void markDirtyTiles() {
+        int dirty = 0;
+        for (int tile = 0, n = tilesX * tilesY; tile < n; tile++) {
+            long signature = ambientRgb;
+            int[] bin = bins[tile];
+            for (int i = 0, count = binCounts[tile]; i < count; i++) {
+                signature = signature * 31 + shadowHash(shadows.get(bin[i]));
+            }
+            int[] lightBin = lightBins[tile];
+            for (int i = 0, count = lightBinCounts[tile]; i < count; i++) {
+                signature = signature * 31 + lightHash(lightBin[i]);
+            }
+            tileDirty[tile] = fullRedraw || tilePending[tile] || signature != tileSignatures[tile];
+            tileSignatures[tile] = signature;
+            if (tileDirty[tile]) {
+                dirty++;
+            }
+        }
+        dirtyTileCount = dirty;
+        pendingTileCount = 0;
+        if (fullRedraw || budgetNanos == 0) {
+            Arrays.fill(tilePending, false);
+        }
+    }
+
+    // counting sort of the dirty tiles into rings of tile distance around the focus, then batches of them
+    // in that order until the render started at start has used its budget, at least one batch per render.
+    // the tiles left over are not dirty for this render but pending for the next
+    private void shadeWithinBudget(long start) {
+        int focusTileX = (int) Math.floor(focusX / TILE_SIZE);
+        int focusTileY = (int) Math.floor(focusY / TILE_SIZE);
+        int tileCount = tilesX * tilesY;
+        Arrays.fill(ringStarts, 0);
+        for (int tile = 0; tile < tileCount; tile++) {
+            if (tileDirty[tile]) {
+                ringStarts[ring(tile, focusTileX, focusTileY) + 1]++;
+            }
+        }
+        for (int r = 0; r + 1 < ringStarts.length; r++) {
+            ringStarts[r + 1] += ringStarts[r];
+        }
+        int dirty = 0;
+        for (int tile = 0; tile < tileCount; tile++) {
+            if (tileDirty[tile]) {
+                tileOrder[ringStarts[ring(tile, focusTileX, focusTileY)]++] = tile;
+                dirty++;
+            }
+        }
+
+        int batch = pool == null ? 1 : pool.getParallelism();
+        int shaded = 0;
+        while (shaded < dirty) {
+            int to = Math.min(shaded + batch, dirty);
+            if (pool == null) {
+                shadeTile(tileOrder[shaded]);
+            } else {
+                pool.invoke(new TileTask(tileOrder, shaded, to));
+            }
+            shaded = to;
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+        for (int i = 0; i < shaded; i++) {
+            tilePending[tileOrder[i]] = false;
+        }
+        for (int i = shaded; i < dirty; i++) {
+            tileDirty[tileOrder[i]] = false;
+            tilePending[tileOrder[i]] = true;
+        }
+        dirtyTileCount = shaded;
+        pendingTileCount = dirty - shaded;
+    }
+
+    // chebyshev distance in tiles, clamped to the last ring
+    private int ring(int tile, int focusTileX, int focusTileY) {
+        int distance = Math.max(Math.abs(tile % tilesX - focusTileX), Math.abs(tile / tilesX - focusTileY));
+        return Math.min(distance, ringStarts.length - 2);
+    }
+
+    private static long shadowHash(Shadow shadow) {
+        long h = Double.doubleToLongBits(shadow.getStart().getX());
+        h = h * 31 + Double.doubleToLongBits(shadow.getStart().getY());
+        h = h * 31 + Double.doubleToLongBits(shadow.getEnd().getX());
+        h = h * 31 + Double.doubleToLongBits(shadow.getEnd().getY());
+        h = h * 31 + Double.doubleToLongBits(shadow.getWidth());
+        return h * 31 + Double.doubleToLongBits(shadow.getIntensity());
+    }
+
+    private long lightHash(int light) {
+        long h = Double.doubleToLongBits(lights.x[light]);
+        h = h * 31 + Double.doubleToLongBits(lights.y[light]);
+        h = h * 31 + Double.doubleToLongBits(lights.radius[light]);
+        h = h * 31 + Double.doubleToLongBits(lights.falloff[light]);
+        h = h * 31 + Double.doubleToLongBits(lights.intensity[light]);
+        h = h * 31 + lights.rgb[light];
+        for (int s = lights.shadowStart[light], end = s + lights.shadowCount[light]; s < end; s++) {
+            h = h * 31 + shadowHash(lights.shadows[s]);
+        }
+        return h;
+    }
+
+    private void updateShades() {
+        if (shadesAmbientRgb == ambientRgb) {
+            return;
+        }
+        for (int alpha = 0; alpha < 256; alpha++) {
+            ambientShades[alpha] = darken(ambientRgb, 255 - alpha);
+            gridShades[alpha] = darken(GRID_RGB, 255 - alpha);
+        }
+        shadesAmbientRgb = ambientRgb;
+    }
+
+    private void binShadows() {
+        Arrays.fill(binCounts, 0);
+        for (int i = 0, n = shadows.size(); i < n; i++) {
+            Shadow shadow = shadows.get(i);
+            Vector2D start = shadow.getStart();
+            Vector2D end = shadow.getEnd();
+            Vector2D dir = shadow.getDirection();
+            double px = -dir.getY() * shadow.getWidth() / 2, py = dir.getX() * shadow.getWidth() / 2;
+            double minX = Math.min(Math.min(start.getX(), end.getX()) - Math.abs(px), width);
+            double maxX = Math.max(start.getX(), end.getX()) + Math.abs(px);
+            double minY = Math.min(Math.min(start.getY(), end.getY()) - Math.abs(py), height);
+            double maxY = Math.max(start.getY(), end.getY()) + Math.abs(py);
+            if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) {
+                continue;
+            }
+
+            int tileMinX = Math.max(0, (int) minX / TILE_SIZE);
+            int tileMaxX = Math.min(tilesX - 1, (int) maxX / TILE_SIZE);
+            int tileMinY = Math.max(0, (int) minY / TILE_SIZE);
+            int tileMaxY = Math.min(tilesY - 1, (int) maxY / TILE_SIZE);
+            for (int ty = tileMinY; ty <= tileMaxY; ty++) {
+                for (int tx = tileMinX; tx <= tileMaxX; tx++) {
+                    int tile = ty * tilesX + tx;
+                    if (binCounts[tile] == bins[tile].length) {
+                        bins[tile] = Arrays.copyOf(bins[tile], bins[tile].length * 2);
+                    }
+                    bins[tile][binCounts[tile]++] = i;
+                }
+            }
+        }
+    }
+
+    // bins every light into the tiles its radius overlaps and rebuilds its attenuation table
+    private void binLights() {
+        Arrays.fill(lightBinCounts, 0);
+        if (lights == null) {
+            return;
+        }
+        if (falloffTables.length < lights.count) {
+            falloffTables = Arrays.copyOf(falloffTables, lights.count);
+        }
+        for (int l = 0; l < lights.count; l++) {
+            if (falloffTables[l] == null) {
+                falloffTables[l] = new float[FALLOFF_STEPS + 1];
+            }
+            float[] table = falloffTables[l];
+            for (int i = 0; i <= FALLOFF_STEPS; i++) {
+                double d = Math.sqrt(i / (double) FALLOFF_STEPS);
+                table[i] = (float) (lights.intensity[l] * Math.pow(1 - d, lights.falloff[l]));
+            }
+
+            double r = lights.radius[l];
+            double minX = lights.x[l] - r, maxX = lights.x[l] + r;
+            double minY = lights.y[l] - r, maxY = lights.y[l] + r;
+            if (r <= 0 || maxX < 0 || maxY < 0 || minX >= width || minY >= height) {
+                continue;
+            }
+            int tileMinX = Math.max(0, (int) Math.max(minX, 0) / TILE_SIZE);
+            int tileMaxX = Math.min(tilesX - 1, (int) maxX / TILE_SIZE);
+            int tileMinY = Math.max(0, (int) Math.max(minY, 0) / TILE_SIZE);
+            int tileMaxY = Math.min(tilesY - 1, (int) maxY / TILE_SIZE);
+            for (int ty = tileMinY; ty <= tileMaxY; ty++) {
+                for (int tx = tileMinX; tx <= tileMaxX; tx++) {
+                    // skip tiles the circle only touches with its bounding box
+                    double nearestX = Math.max(tx * TILE_SIZE, Math.min(lights.x[l], (tx + 1) * TILE_SIZE));
+                    double nearestY = Math.max(ty * TILE_SIZE, Math.min(lights.y[l], (ty + 1) * TILE_SIZE));
+                    double ddx = nearestX - lights.x[l], ddy = nearestY - lights.y[l];
+                    if (ddx * ddx + ddy * ddy >= r * r) {
+                        continue;
+                    }
+                    int tile = ty * tilesX + tx;
+                    if (lightBinCounts[tile] == lightBins[tile].length) {
+                        lightBins[tile] = Arrays.copyOf(lightBins[tile], lightBins[tile].length * 2);
+                    }
+                    lightBins[tile][lightBinCounts[tile]++] = l;
+                }
+            }
+        }
+    }
+
+    private void shadeTile(int tile) {
+        int minX = (tile % tilesX) * TILE_SIZE;
+        int minY = (tile / tilesX) * TILE_SIZE;
+        int maxX = Math.min(minX + TILE_SIZE, width) - 1;
+        int maxY = Math.min(minY + TILE_SIZE, height) - 1;
+
+        for (int y = minY; y <= maxY; y++) {
+            Arrays.fill(shade, y * width + minX, y * width + maxX + 1, 0);
+        }
+        int[] bin = bins[tile];
+        for (int i = 0, n = binCounts[tile]; i < n; i++) {
+            Shadow shadow = shadows.get(bin[i]);
+            rasterizeShadow(shadow, Math.min(0.5 * shadow.getIntensity(), 1.0) * 255, shade,
+                    minX, minY, maxX, maxY);
+        }
+        if (lightBinCounts[tile] == 0) {
+            composite(minX, minY, maxX, maxY);
+            return;
+        }
+
+        for (int y = minY; y <= maxY; y++) {
+            Arrays.fill(lightR, y * width + minX, y * width + maxX + 1, 0);
+            Arrays.fill(lightG, y * width + minX, y * width + maxX + 1, 0);
+            Arrays.fill(lightB, y * width + minX, y * width + maxX + 1, 0);
+        }
+        int[] lightBin = lightBins[tile];
+        for (int i = 0, n = lightBinCounts[tile]; i < n; i++) {
+            accumulateLight(lightBin[i], minX, minY, maxX, maxY);
+        }
+        compositeLit(minX, minY, maxX, maxY);
+    }
+
+    // adds one light's attenuated colour to the accumulation buffers, masked by its own shadows
+    private void accumulateLight(int light, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        double lx = lights.x[light], ly = lights.y[light], r = lights.radius[light];
+        int minX = Math.max(clipMinX, (int) Math.floor(lx - r));
+        int maxX = Math.min(clipMaxX, (int) Math.ceil(lx + r));
+        int minY = Math.max(clipMinY, (int) Math.floor(ly - r));
+        int maxY = Math.min(clipMaxY, (int) Math.ceil(ly + r));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        for (int y = minY; y <= maxY; y++) {
+            Arrays.fill(occlusion, y * width + minX, y * width + maxX + 1, 0);
+        }
+        for (int s = lights.shadowStart[light], end = s + lights.shadowCount[light]; s < end; s++) {
+            rasterizeShadow(lights.shadows[s], 255, occlusion, minX, minY, maxX, maxY);
+        }
+
+        float[] table = falloffTables[light];
+        int rgb = lights.rgb[light];
+        int red = (rgb >> 16) & 0xFF, green = (rgb >> 8) & 0xFF, blue = rgb & 0xFF;
+        double stepsPerDistanceSq = FALLOFF_STEPS / (r * r);
+        for (int y = minY; y <= maxY; y++) {
+            double dy = y + 0.5 - ly;
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                double dx = x + 0.5 - lx;
+                int step = (int) ((dx * dx + dy * dy) * stepsPerDistanceSq);
+                if (step >= FALLOFF_STEPS) {
+                    continue;
+                }
+                float lit = table[step] * (255 - occlusion[row + x]) * (1f / 255);
+                lightR[row + x] += (int) (red * lit);
+                lightG[row + x] += (int) (green * lit);
+                lightB[row + x] += (int) (blue * lit);
+            }
+        }
+    }
+
+    // shadow quad spans the shadow's width across the start-end axis, alpha fades linearly from startAlpha at
+    // the start to 0 at the end and is max-combined into target. only pixels inside the clip rectangle
+    // are touched
+    private void rasterizeShadow(Shadow shadow, double startAlpha, int[] target, int clipMinX, int clipMinY,
+            int clipMaxX, int clipMaxY) {
+        Vector2D start = shadow.getStart();
+        Vector2D end = shadow.getEnd();
+        Vector2D dir = shadow.getDirection();
+        double length = start.distanceTo(end);
+        if (length == 0) {
+            return;
+        }
+        double sx = start.getX(), sy = start.getY();
+        double dx = dir.getX(), dy = dir.getY();
+        double halfWidth = shadow.getWidth() / 2;
+
+        // bounding box of the quad, clipped
+        double px = -dy * halfWidth, py = dx * halfWidth;
+        double ex = end.getX(), ey = end.getY();
+        double absPx = Math.abs(px), absPy = Math.abs(py);
+        int minX = Math.max(clipMinX, (int) Math.floor(Math.min(sx, ex) - absPx));
+        int maxX = Math.min(clipMaxX, (int) Math.ceil(Math.max(sx, ex) + absPx));
+        int minY = Math.max(clipMinY, (int) Math.floor(Math.min(sy, ey) - absPy));
+        int maxY = Math.min(clipMaxY, (int) Math.ceil(Math.max(sy, ey) + absPy));
+
+        double alphaPerUnit = startAlpha / length;
+        for (int y = minY; y <= maxY; y++) {
+            double ry = y + 0.5 - sy;
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                double rx = x + 0.5 - sx;
+                double along = rx * dx + ry * dy;
+                double across = rx * -dy + ry * dx;
+                if (along < 0 || along > length || across < -halfWidth || across > halfWidth) {
+                    continue;
+                }
+                int alpha = (int) (startAlpha - along * alphaPerUnit);
+                if (alpha > target[row + x]) {
+                    target[row + x] = alpha;
+                }
+            }
+        }
+    }
+
+    private void composite(int minX, int minY, int maxX, int maxY) {
+        for (int y = minY; y <= maxY; y++) {
+            boolean onGridRow = gridRow[y];
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                int[] shades = onGridRow || gridColumn[x] ? gridShades : ambientShades;
+                pixels[row + x] = shades[shade[row + x]];
+            }
+        }
+    }
+
+    // shaded ground plus the accumulated point light, saturating per channel
+    private void compositeLit(int minX, int minY, int maxX, int maxY) {
+        for (int y = minY; y <= maxY; y++) {
+            boolean onGridRow = gridRow[y];
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                int[] shades = onGridRow || gridColumn[x] ? gridShades : ambientShades;
+                int base = shades[shade[row + x]];
+                int r = Math.min(255, ((base >> 16) & 0xFF) + lightR[row + x]);
+                int g = Math.min(255, ((base >> 8) & 0xFF) + lightG[row + x]);
+                int b = Math.min(255, (base & 0xFF) + lightB[row + x]);
+                pixels[row + x] = (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    // splits the tile range in halves down to single tiles
+    // order maps positions in [from, to) to tiles, null for tiles from to to themselves
+    private final class TileTask extends RecursiveAction {
+        private final int[] order;
+        private final int from;
+        private final int to;
+
+        TileTask(int[] order, int from, int to) {
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                int tile = order == null ? from : order[from];
+                if (tileDirty[tile]) {
+                    shadeTile(tile);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(order, from, mid), new TileTask(order, mid, to));
+        }
+    }
+
+    private void updateGrid() {
+        for (int x = 0; x < width; x++) {
+            gridColumn[x] = isGridLine(x, viewOriginX);
+        }
+        for (int y = 0; y < height; y++) {
+            gridRow[y] = isGridLine(y, viewOriginY);
+        }
+    }
+
+    // grid lines run over [0, GRID_SIZE * CELL_SIZE] world pixels on both axes; a screen pixel is on a line
+    // if one falls inside the world span it covers
+    private boolean isGridLine(int coord, double origin) {
+        if (CELL_SIZE * viewZoom < MIN_GRID_SPACING) {
+            return false;
+        }
+        double line = Math.ceil((origin + coord / viewZoom) / CELL_SIZE) * CELL_SIZE;
+        return line < origin + (coord + 1) / viewZoom && line >= 0 && line <= GRID_SIZE * CELL_SIZE;
+    }
+
+    private static int channel(double value) {
+        return (int) (Math.min(Math.max(value, 0), 1) * 255 + 0.5);
+    }
+
+    // scales each channel of rgb by keep / 255
+    private static int darken(int rgb, int keep) {
+        int r = (((rgb >> 16) & 0xFF) * keep + 127) / 255;
+        int g = (((rgb >> 8) & 0xFF) * keep + 127) / 255;
+        int b = ((rgb & 0xFF) * keep + 127) / 255;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    // backing pixels in 0xRRGGBB, row-major
+    int[] getPixels() {
+        return pixels;
+    }
+}
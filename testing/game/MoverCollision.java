@@ -0,0 +1,132 @@
+package game;
+
+import java.util.List;
+
+// pushes movers out of static objects and out of each other. every mover reads the positions left by
+// physics from the previous columns and only writes its own x and y, so batches never race and the
+// result does not depend on how ids were split. overlapping movers each take half the overlap, a static
+// object pushes a mover out fully, as the player is pushed
+final class MoverCollision implements MoverSystem {
+    private final PointGrid moverGrid;
+    private final PointGrid obstacleGrid;
+    private double maxMoverRadius;
+
+    // static obstacles, copied out of the object list whenever its version changes
+    private double[] obstacleX = new double[0];
+    private double[] obstacleY = new double[0];
+    private double[] obstacleRadius = new double[0];
+    private int obstacleCount;
+    private double maxObstacleRadius;
+    private int obstaclesVersion;
+    private boolean obstaclesBuilt;
+
+    MoverCollision(double cellSize) {
+        moverGrid = new PointGrid(cellSize);
+        obstacleGrid = new PointGrid(cellSize);
+    }
+
+    // called before each run with the world's objects and World.getObjectsVersion()
+    void setObstacles(List<GameObject> objects, int version) {
+        if (obstaclesBuilt && version == obstaclesVersion) {
+            return;
+        }
+        int n = objects.size();
+        if (obstacleX.length < n) {
+            obstacleX = new double[n];
+            obstacleY = new double[n];
+            obstacleRadius = new double[n];
+        }
+        maxObstacleRadius = 0;
+        for (int i = 0; i < n; i++) {
+            GameObject obj = objects.get(i);
+            obstacleX[i] = obj.getPosition().getX();
+            obstacleY[i] = obj.getPosition().getY();
+            obstacleRadius[i] = obj.getRadius();
+            maxObstacleRadius = Math.max(maxObstacleRadius, obstacleRadius[i]);
+        }
+        obstacleCount = n;
+        obstacleGrid.build(obstacleX, obstacleY, n);
+        obstaclesVersion = version;
+        obstaclesBuilt = true;
+    }
+
+    @Override
+    public void prepare(MoverStore movers, double deltaTime) {
+        int n = movers.size();
+        System.arraycopy(movers.x, 0, movers.previousX, 0, n);
+        System.arraycopy(movers.y, 0, movers.previousY, 0, n);
+        maxMoverRadius = 0;
+        for (int i = 0; i < n; i++) {
+            maxMoverRadius = Math.max(maxMoverRadius, movers.radius[i]);
+        }
+        moverGrid.build(movers.previousX, movers.previousY, n);
+    }
+
+    @Override
+    public void update(MoverStore movers, int from, int to, double deltaTime) {
+        double[] px = movers.previousX, py = movers.previousY, radius = movers.radius;
+        for (int i = from; i < to; i++) {
+            double x = px[i], y = py[i], r = radius[i];
+            double pushX = 0, pushY = 0;
+
+            // other movers, each resolving half of the overlap
+            double reach = r + maxMoverRadius;
+            int maxColumn = moverGrid.maxColumn(x + reach), maxRow = moverGrid.maxRow(y + reach);
+            for (int row = moverGrid.minRow(y - reach); row <= maxRow; row++) {
+                for (int column = moverGrid.minColumn(x - reach); column <= maxColumn; column++) {
+                    int cell = moverGrid.cell(column, row);
+                    for (int k = moverGrid.cellStart[cell], end = moverGrid.cellStart[cell + 1]; k < end; k++) {
+                        int j = moverGrid.items[k];
+                        if (j == i) {
+                            continue;
+                        }
+                        double dx = x - px[j], dy = y - py[j];
+                        double minDist = r + radius[j];
+                        double distSq = dx * dx + dy * dy;
+                        if (distSq >= minDist * minDist) {
+                            continue;
+                        }
+                        double distance = Math.sqrt(distSq);
+                        if (distance == 0) {
+                            // coincident, separate along x by id so the pair splits apart
+                            pushX += (i < j ? -0.5 : 0.5) * minDist;
+                        } else {
+                            double push = 0.5 * (minDist - distance) / distance;
+                            pushX += dx * push;
+                            pushY += dy * push;
+                        }
+                    }
+                }
+            }
+
+            // static objects, resolving all of it
+            if (obstacleCount > 0) {
+                reach = r + maxObstacleRadius;
+                maxColumn = obstacleGrid.maxColumn(x + reach);
+                maxRow = obstacleGrid.maxRow(y + reach);
+                for (int row = obstacleGrid.minRow(y - reach); row <= maxRow; row++) {
+                    for (int column = obstacleGrid.minColumn(x - reach); column <= maxColumn; column++) {
+                        int cell = obstacleGrid.cell(column, row);
+                        for (int k = obstacleGrid.cellStart[cell], end = obstacleGrid.cellStart[cell + 1];
+                                k < end; k++) {
+                            int j = obstacleGrid.items[k];
+                            double dx = x - obstacleX[j], dy = y - obstacleY[j];
+                            double minDist = r + obstacleRadius[j];
+                            double distSq = dx * dx + dy * dy;
+                            if (distSq >= minDist * minDist || distSq == 0) {
+                                continue;
+                            }
+                            double distance = Math.sqrt(distSq);
+                            double push = (minDist - distance) / distance;
+                            pushX += dx * push;
+                            pushY += dy * push;
+                        }
+                    }
+                }
+            }
+
+            movers.x[i] = x + pushX;
+            movers.y[i] = y + pushY;
+        }
+    }
+}
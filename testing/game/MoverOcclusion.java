@@ -0,0 +1,49 @@
+package game;
+
+import static game.World.CELL_SIZE;
+import static game.World.GRID_SIZE;
+
+// shades the tops of movers that a taller static object hides from the active body, the mover
+// counterpart of LightingEngine's object light. reads only positions, so it shares a stage with
+// MoverShadows
+final class MoverOcclusion implements MoverSystem {
+    private CelestialBody body;
+    private HeightField heightField; // null leaves every mover fully lit
+
+    private final MutableVector3D lightDirection = new MutableVector3D();
+    private float shaded;
+
+    void setBody(CelestialBody body) {
+        this.body = body;
+    }
+
+    void setHeightField(HeightField heightField) {
+        this.heightField = heightField;
+    }
+
+    @Override
+    public void prepare(MoverStore movers, double deltaTime) {
+        if (heightField == null || body == null) {
+            return;
+        }
+        DayCycleTable.bodyDirection(body.getAngle(), lightDirection);
+        shaded = (float) (1 - Math.min(0.5 * LightingEngine.shadowIntensity(body.getPosition().getY()
+                - GRID_SIZE * CELL_SIZE / 2.0), 1.0));
+    }
+
+    @Override
+    public void update(MoverStore movers, int from, int to, double deltaTime) {
+        float[] light = movers.light;
+        HeightField field = heightField;
+        if (field == null || body == null) {
+            for (int i = from; i < to; i++) {
+                light[i] = 1f;
+            }
+            return;
+        }
+        double dx = lightDirection.getX(), dy = lightDirection.getY(), dz = lightDirection.getZ();
+        for (int i = from; i < to; i++) {
+            light[i] = field.isOccluded(movers.x[i], movers.y[i], movers.height[i], dx, dy, dz) ? shaded : 1f;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package game;
+
+// steers every mover towards its goal and integrates velocity and position with the player's model:
+// friction as a half-life decay, a speed cap and a full stop below a small speed. a mover that reaches
+// its goal picks a new one inside the bounds from its own random state
+final class MoverPhysics implements MoverSystem {
+    static final double ACCELERATION = 12.0;
+    static final double FRICTION = 0.10;
+    static final double ARRIVE_DISTANCE = 0.5;
+    private static final double STOP_SPEED = 0.01;
+
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private double friction; // FRICTION ^ deltaTime, shared by the whole step
+
+    MoverPhysics(double minX, double minY, double maxX, double maxY) {
+        setBounds(minX, minY, maxX, maxY);
+    }
+
+    // movers are kept inside [minX, maxX] x [minY, maxY] in grid units
+    void setBounds(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    @Override
+    public void prepare(MoverStore movers, double deltaTime) {
+        friction = Math.pow(FRICTION, deltaTime);
+    }
+
+    @Override
+    public void update(MoverStore movers, int from, int to, double deltaTime) {
+        double[] x = movers.x, y = movers.y, vx = movers.vx, vy = movers.vy;
+        double[] goalX = movers.goalX, goalY = movers.goalY, maxSpeed = movers.maxSpeed;
+        for (int i = from; i < to; i++) {
+            double toGoalX = goalX[i] - x[i];
+            double toGoalY = goalY[i] - y[i];
+            double distance = Math.sqrt(toGoalX * toGoalX + toGoalY * toGoalY);
+            if (distance < ARRIVE_DISTANCE) {
+                pickGoal(movers, i);
+                toGoalX = goalX[i] - x[i];
+                toGoalY = goalY[i] - y[i];
+                distance = Math.sqrt(toGoalX * toGoalX + toGoalY * toGoalY);
+            }
+
+            double velocityX = vx[i] * friction;
+            double velocityY = vy[i] * friction;
+            if (distance > 0) {
+                velocityX += toGoalX / distance * ACCELERATION * deltaTime;
+                velocityY += toGoalY / distance * ACCELERATION * deltaTime;
+            }
+            double speed = Math.sqrt(velocityX * velocityX + velocityY * velocityY);
+            if (speed > maxSpeed[i]) {
+                velocityX *= maxSpeed[i] / speed;
+                velocityY *= maxSpeed[i] / speed;
+            }
+
+            double r = movers.radius[i];
+            x[i] = Math.min(Math.max(x[i] + velocityX * deltaTime, minX + r), maxX - r);
+            y[i] = Math.min(Math.max(y[i] + velocityY * deltaTime, minY + r), maxY - r);
+
+            if (speed < STOP_SPEED) {
+                velocityX = 0;
+                velocityY = 0;
+            }
+            vx[i] = velocityX;
+            vy[i] = velocityY;
+        }
+    }
+
+    private void pickGoal(MoverStore movers, int i) {
+        int s = movers.seed[i];
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        double u = (s >>> 8) / (double) (1 << 24);
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        double v = (s >>> 8) / (double) (1 << 24);
+        movers.seed[i] = s;
+        movers.goalX[i] = minX + u * (maxX - minX);
+        movers.goalY[i] = minY + v * (maxY - minY);
+    }
+}
@@ -0,0 +1,61 @@
+package game;
+
+import static game.LightingEngine.shadowIntensity;
+import static game.LightingEngine.shadowScale;
+import static game.World.CELL_SIZE;
+import static game.World.GRID_SIZE;
+
+// shadows of the movers from the active celestial body, the model of LightingEngine.shadowScale applied
+// over the mover columns in the straight-line form of ShadowKernel. movers move every step, so there is
+// no cache and every shadow is recomputed
+final class MoverShadows implements MoverSystem {
+    private CelestialBody body;
+
+    // terms shared by every caster, set in prepare
+    private boolean visible;
+    private double celestialX;
+    private double celestialY;
+    private double celestialHeight;
+    private double intensity;
+
+    // the body to cast from on the next run
+    void setBody(CelestialBody body) {
+        this.body = body;
+    }
+
+    @Override
+    public void prepare(MoverStore movers, double deltaTime) {
+        visible = body != null && body.isVisible();
+        if (!visible) {
+            return;
+        }
+        celestialX = body.getPosition().getX();
+        celestialY = body.getPosition().getY();
+        celestialHeight = celestialY - (GRID_SIZE * CELL_SIZE / 2.0);
+        intensity = shadowIntensity(celestialHeight);
+    }
+
+    @Override
+    public void update(MoverStore movers, int from, int to, double deltaTime) {
+        double[] xs = movers.x, ys = movers.y, heights = movers.height;
+        double[] endX = movers.shadowEndX, endY = movers.shadowEndY, intensities = movers.shadowIntensity;
+        boolean[] castsShadow = movers.castsShadow;
+        for (int i = from; i < to; i++) {
+            castsShadow[i] = visible;
+            if (!visible) {
+                continue;
+            }
+            double objX = xs[i] * CELL_SIZE;
+            double objY = ys[i] * CELL_SIZE;
+            double toLightX = celestialX - objX;
+            double toLightY = celestialY - objY;
+            double toLightLength = Math.sqrt(toLightX * toLightX + toLightY * toLightY);
+
+            double scale = shadowScale(heights[i], toLightLength, celestialHeight);
+
+            endX[i] = objX + toLightX * scale;
+            endY[i] = objY + toLightY * scale;
+            intensities[i] = intensity;
+        }
+    }
+}
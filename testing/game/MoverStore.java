@@ -0,0 +1,190 @@
+package game;
+
+import java.util.Arrays;
+
+// struct-of-arrays store for moving agents: every component is a primitive column indexed by mover id,
+// so systems stream through contiguous arrays and batches of ids can be handed to different threads.
+// positions and velocities are in grid units, shadow ends in pixels like Shadow
+public class MoverStore {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    static final double DEFAULT_MAX_SPEED = 3.0;
+
+    // body
+    double[] x;
+    double[] y;
+    double[] height;
+    double[] radius;
+    int[] rgb; // packed 0xRRGGBB
+
+    // motion
+    double[] vx;
+    double[] vy;
+    double[] maxSpeed;
+    double[] goalX; // point the mover steers towards
+    double[] goalY;
+    int[] seed; // per-mover xorshift state, so picking goals needs no shared random source
+
+    // collision: positions before the collision pass, read while x and y are written
+    double[] previousX;
+    double[] previousY;
+
+    // lighting
+    boolean[] castsShadow;
+    double[] shadowEndX;
+    double[] shadowEndY;
+    double[] shadowIntensity;
+    float[] light; // brightness of the top, 1 when lit
+
+    private int size;
+
+    public MoverStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoverStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        x = new double[capacity];
+        y = new double[capacity];
+        height = new double[capacity];
+        radius = new double[capacity];
+        rgb = new int[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        maxSpeed = new double[capacity];
+        goalX = new double[capacity];
+        goalY = new double[capacity];
+        seed = new int[capacity];
+        previousX = new double[capacity];
+        previousY = new double[capacity];
+        castsShadow = new boolean[capacity];
+        shadowEndX = new double[capacity];
+        shadowEndY = new double[capacity];
+        shadowIntensity = new double[capacity];
+        light = new float[capacity];
+    }
+
+    // returns the id of the new mover, which starts at rest with its goal at its own position
+    public int add(double x, double y, double height, double radius, int rgb) {
+        if (size == this.x.length) {
+            grow(size * 2);
+        }
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.height[i] = height;
+        this.radius[i] = radius;
+        this.rgb[i] = rgb;
+        vx[i] = 0;
+        vy[i] = 0;
+        maxSpeed[i] = DEFAULT_MAX_SPEED;
+        goalX[i] = x;
+        goalY[i] = y;
+        seed[i] = (i + 1) * 0x9E3779B9; // never 0, xorshift would stay there
+        previousX[i] = x;
+        previousY[i] = y;
+        castsShadow[i] = false;
+        light[i] = 1f;
+        return i;
+    }
+
+    // moves the last mover into slot i, so ids above i are not stable across a remove
+    public void remove(int i) {
+        int last = --size;
+        if (i == last) {
+            return;
+        }
+        x[i] = x[last];
+        y[i] = y[last];
+        height[i] = height[last];
+        radius[i] = radius[last];
+        rgb[i] = rgb[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        maxSpeed[i] = maxSpeed[last];
+        goalX[i] = goalX[last];
+        goalY[i] = goalY[last];
+        seed[i] = seed[last];
+        previousX[i] = previousX[last];
+        previousY[i] = previousY[last];
+        castsShadow[i] = castsShadow[last];
+        shadowEndX[i] = shadowEndX[last];
+        shadowEndY[i] = shadowEndY[last];
+        shadowIntensity[i] = shadowIntensity[last];
+        light[i] = light[last];
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        height = Arrays.copyOf(height, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        rgb = Arrays.copyOf(rgb, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        maxSpeed = Arrays.copyOf(maxSpeed, capacity);
+        goalX = Arrays.copyOf(goalX, capacity);
+        goalY = Arrays.copyOf(goalY, capacity);
+        seed = Arrays.copyOf(seed, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        castsShadow = Arrays.copyOf(castsShadow, capacity);
+        shadowEndX = Arrays.copyOf(shadowEndX, capacity);
+        shadowEndY = Arrays.copyOf(shadowEndY, capacity);
+        shadowIntensity = Arrays.copyOf(shadowIntensity, capacity);
+        light = Arrays.copyOf(light, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getHeight(int i) {
+        return height[i];
+    }
+
+    public double getRadius(int i) {
+        return radius[i];
+    }
+
+    public int getRgb(int i) {
+        return rgb[i];
+    }
+
+    public double getVelocityX(int i) {
+        return vx[i];
+    }
+
+    public double getVelocityY(int i) {
+        return vy[i];
+    }
+
+    public void setMaxSpeed(int i, double maxSpeed) {
+        this.maxSpeed[i] = maxSpeed;
+    }
+
+    public void setGoal(int i, double goalX, double goalY) {
+        this.goalX[i] = goalX;
+        this.goalY[i] = goalY;
+    }
+
+    public boolean castsShadow(int i) {
+        return castsShadow[i];
+    }
+
+    public float getLight(int i) {
+        return light[i];
+    }
+}
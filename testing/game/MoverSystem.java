@@ -0,0 +1,12 @@
+package game;
+
+// one pass over the movers, run by a SystemScheduler. update may be called concurrently for disjoint id
+// ranges, so it must only write the columns of ids in [from, to) and read columns no system in the same
+// stage writes
+public interface MoverSystem {
+    // runs once on the scheduling thread before any batch of the stage, e.g. to build lookup structures
+    default void prepare(MoverStore movers, double deltaTime) {
+    }
+
+    void update(MoverStore movers, int from, int to, double deltaTime);
+}
@@ -0,0 +1,80 @@
+package game;
+
+// in-place companion to Vector2D for per-frame hot paths; every mutator returns this so calls can be chained
+// without allocating. inherited operations such as add() still return fresh immutable vectors
+public class MutableVector2D extends Vector2D {
+
+    public MutableVector2D() {
+        super(0, 0);
+    }
+
+    public MutableVector2D(double x, double y) {
+        super(x, y);
+    }
+
+    public MutableVector2D(Vector2D other) {
+        super(other.x, other.y);
+    }
+
+    // assignment
+    public MutableVector2D set(double x, double y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    public MutableVector2D set(Vector2D other) {
+        return set(other.x, other.y);
+    }
+
+    public MutableVector2D setZero() {
+        return set(0, 0);
+    }
+
+    // scratch-register style: this = a - b
+    public MutableVector2D setDifference(Vector2D a, Vector2D b) {
+        return set(a.x - b.x, a.y - b.y);
+    }
+
+    // basic operations
+    public MutableVector2D addInPlace(Vector2D other) {
+        return set(x + other.x, y + other.y);
+    }
+
+    public MutableVector2D addInPlace(double dx, double dy) {
+        return set(x + dx, y + dy);
+    }
+
+    // this += other * scalar
+    public MutableVector2D addScaledInPlace(Vector2D other, double scalar) {
+        return set(x + other.x * scalar, y + other.y * scalar);
+    }
+
+    public MutableVector2D subtractInPlace(Vector2D other) {
+        return set(x - other.x, y - other.y);
+    }
+
+    public MutableVector2D multiplyInPlace(double scalar) {
+        return set(x * scalar, y * scalar);
+    }
+
+    // magnitude and normalization
+    public MutableVector2D normalizeInPlace() {
+        double len = length();
+        if (len == 0)
+            return setZero();
+        return set(x / len, y / len);
+    }
+
+    // perpendicular vectors
+    public MutableVector2D perpendicularInPlace() {
+        return set(-y, x);
+    }
+
+    // linear interpolation
+    public MutableVector2D lerpInPlace(Vector2D other, double t) {
+        return set(
+                x + (other.x - x) * t,
+                y + (other.y - y) * t);
+    }
+}
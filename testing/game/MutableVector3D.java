@@ -0,0 +1,80 @@
+package game;
+
+// in-place companion to Vector3D, see MutableVector2D
+public class MutableVector3D extends Vector3D {
+
+    public MutableVector3D() {
+        super(0, 0, 0);
+    }
+
+    public MutableVector3D(double x, double y, double z) {
+        super(x, y, z);
+    }
+
+    public MutableVector3D(Vector3D other) {
+        super(other.x, other.y, other.z);
+    }
+
+    // assignment
+    public MutableVector3D set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public MutableVector3D set(Vector3D other) {
+        return set(other.x, other.y, other.z);
+    }
+
+    public MutableVector3D setZero() {
+        return set(0, 0, 0);
+    }
+
+    // scratch-register style: this = a - b
+    public MutableVector3D setDifference(Vector3D a, Vector3D b) {
+        return set(a.x - b.x, a.y - b.y, a.z - b.z);
+    }
+
+    // scratch-register style: this = a x b, safe when this aliases a or b
+    public MutableVector3D setCrossProduct(Vector3D a, Vector3D b) {
+        return set(
+                a.y * b.z - a.z * b.y,
+                a.z * b.x - a.x * b.z,
+                a.x * b.y - a.y * b.x);
+    }
+
+    // basic operations
+    public MutableVector3D addInPlace(Vector3D other) {
+        return set(x + other.x, y + other.y, z + other.z);
+    }
+
+    // this += other * scalar
+    public MutableVector3D addScaledInPlace(Vector3D other, double scalar) {
+        return set(x + other.x * scalar, y + other.y * scalar, z + other.z * scalar);
+    }
+
+    public MutableVector3D subtractInPlace(Vector3D other) {
+        return set(x - other.x, y - other.y, z - other.z);
+    }
+
+    public MutableVector3D multiplyInPlace(double scalar) {
+        return set(x * scalar, y * scalar, z * scalar);
+    }
+
+    // magnitude and normalization
+    public MutableVector3D normalizeInPlace() {
+        double len = length();
+        if (len == 0)
+            return setZero();
+        return set(x / len, y / len, z / len);
+    }
+
+    // linear interpolation
+    public MutableVector3D lerpInPlace(Vector3D other, double t) {
+        return set(
+                x + (other.x - x) * t,
+                y + (other.y - y) * t,
+                z + (other.z - z) * t);
+    }
+}
@@ -0,0 +1,106 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// struct-of-arrays store for static casters: one primitive column per attribute, indexed by object id
+public class ObjectStore {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    double[] x;
+    double[] y;
+    double[] height;
+    double[] radius;
+    int[] rgb; // packed 0xRRGGBB
+    private int size;
+
+    public ObjectStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ObjectStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        x = new double[capacity];
+        y = new double[capacity];
+        height = new double[capacity];
+        radius = new double[capacity];
+        rgb = new int[capacity];
+    }
+
+    public static ObjectStore of(List<GameObject> objects) {
+        ObjectStore store = new ObjectStore(objects.size());
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            store.add(objects.get(i));
+        }
+        return store;
+    }
+
+    // materializes one GameObject per entry, for code that still works on object lists
+    public List<GameObject> toObjects() {
+        List<GameObject> objects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            objects.add(new GameObject(new Vector2D(x[i], y[i]), height[i], radius[i], rgb[i]));
+        }
+        return objects;
+    }
+
+    public int add(GameObject obj) {
+        Vector2D pos = obj.getPosition();
+        return add(pos.getX(), pos.getY(), obj.getHeight(), obj.getRadius(), obj.getRgb());
+    }
+
+    // returns the index of the new object
+    public int add(double x, double y, double height, double radius, int rgb) {
+        if (size == this.x.length) {
+            grow(size * 2);
+        }
+        this.x[size] = x;
+        this.y[size] = y;
+        this.height[size] = height;
+        this.radius[size] = radius;
+        this.rgb[size] = rgb;
+        return size++;
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        height = Arrays.copyOf(height, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        rgb = Arrays.copyOf(rgb, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // for bulk loaders that fill the columns directly
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getHeight(int i) {
+        return height[i];
+    }
+
+    public double getRadius(int i) {
+        return radius[i];
+    }
+
+    public int getRgb(int i) {
+        return rgb[i];
+    }
+}
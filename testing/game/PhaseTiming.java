@@ -0,0 +1,41 @@
+package game;
+
+import java.beans.ConstructorProperties;
+
+// latency summary of one frame phase, immutable so it maps onto a jmx composite
+public class PhaseTiming {
+    private final String name;
+    private final long count;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double maxMicros;
+
+    @ConstructorProperties({ "name", "count", "p50Micros", "p99Micros", "maxMicros" })
+    public PhaseTiming(String name, long count, double p50Micros, double p99Micros, double maxMicros) {
+        this.name = name;
+        this.count = count;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+}
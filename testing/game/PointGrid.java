@@ -0,0 +1,102 @@
+package game;
+
+import java.util.Arrays;
+
+// uniform grid over a set of points, rebuilt from scratch with a counting sort. unlike SpatialHash it
+// has no per-query state, so any number of threads may query it at once between builds
+final class PointGrid {
+    // a build doubles the cell size until the grid has at most this many cells per point, or MIN_CELLS, so
+    // sparse points spread over a large world cost memory in proportion to their count, not their extent
+    static final int MAX_CELLS_PER_POINT = 4;
+    static final int MIN_CELLS = 4096;
+
+    private final double cellSize; // smallest cell size, used whenever the grid stays within the cap
+    private double size; // cell size of the last build
+
+    // points of cell c are items[cellStart[c]] .. items[cellStart[c + 1] - 1]
+    int[] cellStart = new int[2];
+    int[] items = new int[0];
+    private int[] cellOf = new int[0];
+    private double originX;
+    private double originY;
+    private int columns;
+    private int rows;
+
+    PointGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    // files points [0, n) by the cell of (x[i], y[i]); the grid spans their bounding box, see
+    // MAX_CELLS_PER_POINT
+    void build(double[] x, double[] y, int n) {
+        if (n == 0) {
+            columns = 0;
+            rows = 0;
+            return;
+        }
+        double minX = x[0], minY = y[0], maxX = x[0], maxY = y[0];
+        for (int i = 1; i < n; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        originX = minX;
+        originY = minY;
+        size = cellSize;
+        // the extent in cells is measured in doubles, which cannot overflow however far apart the points are
+        long maxCells = Math.max(MIN_CELLS, (long) MAX_CELLS_PER_POINT * n);
+        while ((Math.floor((maxX - minX) / size) + 1) * (Math.floor((maxY - minY) / size) + 1) > maxCells) {
+            size *= 2;
+        }
+        columns = (int) ((maxX - minX) / size) + 1;
+        rows = (int) ((maxY - minY) / size) + 1;
+
+        int cells = Math.toIntExact((long) columns * rows);
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        if (items.length < n) {
+            items = new int[n];
+            cellOf = new int[n];
+        }
+
+        // count, prefix sum, then scatter; ids stay ascending within a cell
+        for (int i = 0; i < n; i++) {
+            int c = (int) ((y[i] - minY) / size) * columns + (int) ((x[i] - minX) / size);
+            cellOf[i] = c;
+            cellStart[c + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            items[--cellStart[cellOf[i] + 1]] = i;
+        }
+        // the scatter left cellStart shifted by one cell, cellStart[c + 1] now holds the start of c
+        System.arraycopy(cellStart, 1, cellStart, 0, cells);
+        cellStart[cells] = n;
+    }
+
+    int minColumn(double x) {
+        return Math.max(0, (int) Math.floor((x - originX) / size));
+    }
+
+    int maxColumn(double x) {
+        return Math.min(columns - 1, (int) Math.floor((x - originX) / size));
+    }
+
+    int minRow(double y) {
+        return Math.max(0, (int) Math.floor((y - originY) / size));
+    }
+
+    int maxRow(double y) {
+        return Math.min(rows - 1, (int) Math.floor((y - originY) / size));
+    }
+
+    int cell(int column, int row) {
+        return row * columns + column;
+    }
+}
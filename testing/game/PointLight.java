@@ -0,0 +1,69 @@
+package game;
+
+// dynamic point light in grid units. it lights the ground within radius, attenuated as
+// intensity * (1 - d / radius)^falloff, and casts shadows from the objects around it
+public class PointLight {
+    private final MutableVector2D position;
+    private double height; // same units as GameObject.getHeight(), objects taller than this cast to the radius
+    private double radius;
+    private double falloff;
+    private double intensity;
+    private int rgb;
+
+    public PointLight(Vector2D position, double height, double radius, double falloff, double intensity, int rgb) {
+        this.position = new MutableVector2D(position);
+        this.height = height;
+        this.radius = radius;
+        this.falloff = falloff;
+        this.intensity = intensity;
+        this.rgb = rgb;
+    }
+
+    public Vector2D getPosition() {
+        return position;
+    }
+
+    public void setPosition(double x, double y) {
+        position.set(x, y);
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public void setHeight(double height) {
+        this.height = height;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public void setRadius(double radius) {
+        this.radius = radius;
+    }
+
+    public double getFalloff() {
+        return falloff;
+    }
+
+    public void setFalloff(double falloff) {
+        this.falloff = falloff;
+    }
+
+    public double getIntensity() {
+        return intensity;
+    }
+
+    public void setIntensity(double intensity) {
+        this.intensity = intensity;
+    }
+
+    public int getRgb() {
+        return rgb;
+    }
+
+    public void setRgb(int rgb) {
+        this.rgb = rgb;
+    }
+}
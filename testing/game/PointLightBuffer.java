@@ -0,0 +1,79 @@
+package game;
+
+import java.util.Arrays;
+
+// flat per-frame copy of the point lights in pixel space together with their shadows. the shadows of
+// light i are shadows[shadowStart[i], shadowStart[i] + shadowCount[i]). filled by LightingEngine,
+// copied into RenderSnapshot and read by Lightmap; arrays and shadows are reused between frames
+final class PointLightBuffer {
+    double[] x = new double[0];
+    double[] y = new double[0];
+    double[] radius = new double[0];
+    double[] falloff = new double[0];
+    double[] intensity = new double[0];
+    int[] rgb = new int[0];
+    int[] shadowStart = new int[0];
+    int[] shadowCount = new int[0];
+    int count;
+
+    Shadow[] shadows = new Shadow[0];
+    int totalShadows;
+
+    void clear() {
+        count = 0;
+        totalShadows = 0;
+    }
+
+    // appends a light with no shadows yet
+    void addLight(double x, double y, double radius, double falloff, double intensity, int rgb) {
+        if (count == this.x.length) {
+            int capacity = Math.max(4, count * 2);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.radius = Arrays.copyOf(this.radius, capacity);
+            this.falloff = Arrays.copyOf(this.falloff, capacity);
+            this.intensity = Arrays.copyOf(this.intensity, capacity);
+            this.rgb = Arrays.copyOf(this.rgb, capacity);
+            shadowStart = Arrays.copyOf(shadowStart, capacity);
+            shadowCount = Arrays.copyOf(shadowCount, capacity);
+        }
+        this.x[count] = x;
+        this.y[count] = y;
+        this.radius[count] = radius;
+        this.falloff[count] = falloff;
+        this.intensity[count] = intensity;
+        this.rgb[count] = rgb;
+        shadowStart[count] = totalShadows;
+        shadowCount[count] = 0;
+        count++;
+    }
+
+    // slot for the next shadow of the last added light, kept only if commitShadow() follows
+    Shadow nextShadow() {
+        if (totalShadows == shadows.length) {
+            int oldLength = shadows.length;
+            shadows = Arrays.copyOf(shadows, Math.max(16, oldLength * 2));
+            for (int i = oldLength; i < shadows.length; i++) {
+                shadows[i] = new Shadow();
+            }
+        }
+        return shadows[totalShadows];
+    }
+
+    void commitShadow() {
+        totalShadows++;
+        shadowCount[count - 1]++;
+    }
+
+    void copyFrom(PointLightBuffer source) {
+        clear();
+        for (int i = 0; i < source.count; i++) {
+            addLight(source.x[i], source.y[i], source.radius[i], source.falloff[i], source.intensity[i],
+                    source.rgb[i]);
+            for (int s = source.shadowStart[i], end = s + source.shadowCount[i]; s < end; s++) {
+                nextShadow().set(source.shadows[s]);
+                commitShadow();
+            }
+        }
+    }
+}
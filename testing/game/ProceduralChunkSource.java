@@ -0,0 +1,31 @@
+package game;
+
+import java.util.Random;
+
+import static game.ChunkManager.CHUNK_SIZE;
+
+// deterministic generator: the same seed and chunk coordinates always produce the same objects
+public class ProceduralChunkSource implements ChunkSource {
+    private final long seed;
+    private final int objectsPerChunk;
+
+    public ProceduralChunkSource(long seed, int objectsPerChunk) {
+        this.seed = seed;
+        this.objectsPerChunk = objectsPerChunk;
+    }
+
+    @Override
+    public Chunk load(int chunkX, int chunkY) {
+        Random rand = new Random(seed ^ (chunkX * 0x9E3779B97F4A7C15L) ^ (chunkY * 0xC2B2AE3D27D4EB4FL));
+        Chunk chunk = new Chunk(chunkX, chunkY);
+        double originX = (double) chunkX * CHUNK_SIZE;
+        double originY = (double) chunkY * CHUNK_SIZE;
+        for (int i = 0; i < objectsPerChunk; i++) {
+            double x = originX + rand.nextDouble() * CHUNK_SIZE;
+            double y = originY + rand.nextDouble() * CHUNK_SIZE;
+            double height = 1.0 + rand.nextDouble() * 2.0;
+            chunk.getObjects().add(new GameObject(new Vector2D(x, y), height, World.randomLightRgb(rand)));
+        }
+        return chunk;
+    }
+}
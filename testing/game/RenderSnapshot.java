@@ -0,0 +1,253 @@
+package game;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import static game.LightingEngine.SHADOW_WIDTH;
+import static game.World.CELL_SIZE;
+
+// copy of everything the view draws, captured on the simulation thread after a tick. instances are
+// recycled through a TripleBuffer, so capturing reuses the arrays and shadows of earlier frames
+final class RenderSnapshot {
+    long tickNanos; // when the captured tick finished
+    double tickSeconds;
+
+    // player before and after the captured tick, interpolated by the view
+    double previousPlayerX, previousPlayerY;
+    double playerX, playerY;
+
+    double sunX, sunY, sunSize;
+    double moonX, moonY, moonSize;
+    boolean sunVisible, moonVisible;
+
+    double ambientLight;
+
+    // camera the shadows and objects were culled for, identity when not culled
+    double viewOriginX, viewOriginY;
+    double viewZoom = 1.0;
+
+    private Shadow[] shadows = new Shadow[0];
+    private int shadowCount;
+    private final List<Shadow> shadowView = new AbstractList<Shadow>() {
+        @Override
+        public Shadow get(int index) {
+            return shadows[index];
+        }
+
+        @Override
+        public int size() {
+            return shadowCount;
+        }
+    };
+
+    final PointLightBuffer pointLights = new PointLightBuffer();
+
+    double[] objectX = new double[0];
+    double[] objectY = new double[0];
+    int[] objectRgb = new int[0];
+    float[] objectLight = new float[0]; // brightness of each object's top
+    int objectCount;
+    int objectsVersion = -1; // World.getObjectsVersion() the object columns were copied at
+    int objectLightVersion = -1; // LightingEngine.getObjectLightVersion() objectLight was copied at
+    private boolean culled; // object columns hold a view subset rather than every object
+
+    // movers, recopied every tick; their shadows follow the static shadows in the shadow list
+    double[] moverX = new double[0];
+    double[] moverY = new double[0];
+    double[] moverRadius = new double[0];
+    int[] moverRgb = new int[0];
+    float[] moverLight = new float[0];
+    int moverCount;
+
+    void capture(World world, double previousPlayerX, double previousPlayerY, long tickNanos, double tickSeconds) {
+        capture(world, previousPlayerX, previousPlayerY, tickNanos, tickSeconds, null);
+    }
+
+    // with a culler only the casters and objects in its camera's view are copied, plus cluster impostors
+    void capture(World world, double previousPlayerX, double previousPlayerY, long tickNanos, double tickSeconds,
+            ViewCuller culler) {
+        this.tickNanos = tickNanos;
+        this.tickSeconds = tickSeconds;
+
+        Vector2D player = world.getPlayer().getPosition();
+        this.previousPlayerX = previousPlayerX;
+        this.previousPlayerY = previousPlayerY;
+        this.playerX = player.getX();
+        this.playerY = player.getY();
+
+        CelestialBody sun = world.getSun();
+        CelestialBody moon = world.getMoon();
+        sunX = sun.getPosition().getX();
+        sunY = sun.getPosition().getY();
+        sunSize = sun.getSize();
+        sunVisible = sun.isVisible();
+        moonX = moon.getPosition().getX();
+        moonY = moon.getPosition().getY();
+        moonSize = moon.getSize();
+        moonVisible = moon.isVisible();
+
+        LightingEngine lighting = world.getLighting();
+        ambientLight = lighting.getAmbientLight();
+        pointLights.copyFrom(lighting.getPointLights());
+        if (culler != null) {
+            culler.cull(world);
+            viewOriginX = culler.originX;
+            viewOriginY = culler.originY;
+            viewZoom = culler.zoom;
+            captureCulled(world, culler);
+            captureMovers(world.getMovers(), culler);
+            return;
+        }
+
+        viewOriginX = 0;
+        viewOriginY = 0;
+        viewZoom = 1.0;
+        captureShadows(lighting.getShadows());
+        // objects are only copied when they changed since this instance was last filled
+        if (culled || objectsVersion != world.getObjectsVersion()) {
+            culled = false;
+            captureObjects(world.getObjects());
+            objectsVersion = world.getObjectsVersion();
+            objectLightVersion = -1;
+        }
+        if (objectLightVersion != lighting.getObjectLightVersion()) {
+            for (int i = 0; i < objectCount; i++) {
+                objectLight[i] = lighting.getObjectLight(i);
+            }
+            objectLightVersion = lighting.getObjectLightVersion();
+        }
+        captureMovers(world.getMovers(), null);
+    }
+
+    // visible casters and their objects are recopied every tick, their count is bounded by the view
+    private void captureCulled(World world, ViewCuller culler) {
+        LightingEngine lighting = world.getLighting();
+        List<GameObject> objects = world.getObjects();
+
+        ensureShadowCapacity(culler.visibleCount + culler.clusterCount);
+        int count = 0;
+        for (int k = 0; k < culler.visibleCount; k++) {
+            Shadow shadow = lighting.getShadow(culler.visible[k]);
+            if (shadow != null) {
+                shadows[count++].set(shadow);
+            }
+        }
+        for (int k = 0; k < culler.clusterCount; k++) {
+            if (culler.impostor(culler.clusters[k], lighting, objects, shadows[count])) {
+                count++;
+            }
+        }
+        shadowCount = count;
+
+        int n = culler.visibleCount;
+        ensureObjectCapacity(n);
+        for (int k = 0; k < n; k++) {
+            int i = culler.visible[k];
+            GameObject obj = objects.get(i);
+            objectX[k] = obj.getPosition().getX();
+            objectY[k] = obj.getPosition().getY();
+            objectRgb[k] = obj.getRgb();
+            objectLight[k] = lighting.getObjectLight(i);
+        }
+        objectCount = n;
+        objectsVersion = world.getObjectsVersion();
+        objectLightVersion = lighting.getObjectLightVersion();
+        culled = true;
+    }
+
+    // movers and their shadows, limited to the culler's view when there is one
+    private void captureMovers(MoverStore movers, ViewCuller culler) {
+        int n = movers.size();
+        if (moverX.length < n) {
+            moverX = new double[n];
+            moverY = new double[n];
+            moverRadius = new double[n];
+            moverRgb = new int[n];
+            moverLight = new float[n];
+        }
+        ensureShadowCapacity(shadowCount + n);
+        int count = 0;
+        int shadowEnd = shadowCount;
+        for (int i = 0; i < n; i++) {
+            double x = movers.x[i], y = movers.y[i], r = movers.radius[i];
+            boolean casts = movers.castsShadow[i];
+            double endX = movers.shadowEndX[i] / CELL_SIZE, endY = movers.shadowEndY[i] / CELL_SIZE;
+            if (culler != null) {
+                double pad = r + SHADOW_WIDTH / 2 / CELL_SIZE;
+                double minX = casts ? Math.min(x, endX) : x, maxX = casts ? Math.max(x, endX) : x;
+                double minY = casts ? Math.min(y, endY) : y, maxY = casts ? Math.max(y, endY) : y;
+                if (!culler.inView(minX - pad, minY - pad, maxX + pad, maxY + pad)) {
+                    continue;
+                }
+            }
+            moverX[count] = x;
+            moverY[count] = y;
+            moverRadius[count] = r;
+            moverRgb[count] = movers.rgb[i];
+            moverLight[count] = movers.light[i];
+            count++;
+            if (casts) {
+                shadows[shadowEnd++].set(x * CELL_SIZE, y * CELL_SIZE, movers.shadowEndX[i], movers.shadowEndY[i],
+                        movers.shadowIntensity[i]);
+            }
+        }
+        moverCount = count;
+        shadowCount = shadowEnd;
+    }
+
+    private void ensureShadowCapacity(int n) {
+        if (shadows.length < n) {
+            int oldLength = shadows.length;
+            shadows = Arrays.copyOf(shadows, Math.max(n, oldLength * 2));
+            for (int i = oldLength; i < shadows.length; i++) {
+                shadows[i] = new Shadow();
+            }
+        }
+    }
+
+    private void ensureObjectCapacity(int n) {
+        if (objectX.length < n) {
+            objectX = new double[n];
+            objectY = new double[n];
+            objectRgb = new int[n];
+        }
+        if (objectLight.length < objectX.length) {
+            objectLight = new float[objectX.length];
+        }
+    }
+
+    private void captureShadows(List<Shadow> source) {
+        int n = source.size();
+        ensureShadowCapacity(n);
+        for (int i = 0; i < n; i++) {
+            shadows[i].set(source.get(i));
+        }
+        shadowCount = n;
+    }
+
+    private void captureObjects(List<GameObject> objects) {
+        int n = objects.size();
+        ensureObjectCapacity(n);
+        for (int i = 0; i < n; i++) {
+            GameObject obj = objects.get(i);
+            objectX[i] = obj.getPosition().getX();
+            objectY[i] = obj.getPosition().getY();
+            objectRgb[i] = obj.getRgb();
+        }
+        objectCount = n;
+    }
+
+    // fraction of a tick elapsed since capture, clamped to [0, 1]
+    double alpha(long nowNanos) {
+        if (tickSeconds <= 0) {
+            return 1.0;
+        }
+        double alpha = (nowNanos - tickNanos) / (tickSeconds * 1e9);
+        return Math.min(Math.max(alpha, 0), 1.0);
+    }
+
+    List<Shadow> getShadows() {
+        return shadowView;
+    }
+}
@@ -0,0 +1,181 @@
+package game;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+// headless re-run of a recorded session for performance regression runs. rebuilds the world the
+// recording started from, steps it through every logged tick as fast as possible with no view, then
+// prints per-phase timings and a hash of the final state. two runs of the same log on the same build
+// print the same hash, so a changed hash means the simulation itself changed, not just its speed. with
+// --capture every tick is also drawn and written as a frame, blocking the replay while the encoders catch
+// up, which gives a lossless sequence at the full tick rate however long the session
+public final class Replay {
+
+    private Replay() {
+    }
+
+    // arguments: log [snapshot path] [--capture dir | --capture-raw dir], the snapshot is needed when the
+    // session was recorded on one
+    public static void main(String[] args) throws IOException {
+        String logPath = null;
+        String snapshotPath = null;
+        String capturePath = null;
+        FrameCapture.Format captureFormat = FrameCapture.Format.PNG;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--capture") && i + 1 < args.length) {
+                capturePath = args[++i];
+                captureFormat = FrameCapture.Format.PNG;
+            } else if (arg.equals("--capture-raw") && i + 1 < args.length) {
+                capturePath = args[++i];
+                captureFormat = FrameCapture.Format.RAW;
+            } else if (logPath == null) {
+                logPath = arg;
+            } else {
+                snapshotPath = arg;
+            }
+        }
+        if (logPath == null) {
+            System.err.println("usage: Replay <input log> [snapshot path] [--capture dir | --capture-raw dir]");
+            System.exit(2);
+        }
+        InputLog log = InputLog.read(Paths.get(logPath));
+        if (log.hasFlag(InputLog.SCENE_SNAPSHOT) && snapshotPath == null) {
+            System.err.println("session was recorded on a snapshot scene, pass its path");
+            System.exit(2);
+        }
+
+        World world = Game.createWorld(log.getSeed(), log.getFlags(), snapshotPath);
+        FrameStats stats = new FrameStats();
+        world.setStats(stats);
+
+        int viewSize = World.GRID_SIZE * World.CELL_SIZE;
+        FrameCapture capture = capturePath == null ? null
+                : new FrameCapture(Paths.get(capturePath), captureFormat, viewSize, viewSize,
+                        FrameCapture.DEFAULT_POOL_SIZE, Game.captureEncoders(), true);
+
+        long start = System.nanoTime();
+        if (capture == null) {
+            run(world, log);
+        } else {
+            try (capture) {
+                run(world, log, capture);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int ticks = log.getTickCount();
+        System.out.printf("replayed %d ticks (%.1f s of game time) in %.1f ms, %.0f ticks/s%n", ticks,
+                gameSeconds(log), elapsed / 1e6, ticks / (elapsed / 1e9));
+        System.out.printf("%-15s %8s %8s %8s%n", "phase (us)", "p50", "p99", "max");
+        PhaseTiming[] timings = stats.getPhaseTimings();
+        for (int phase = 0; phase < FrameStats.DRAW_LIGHTMAP; phase++) {
+            PhaseTiming timing = timings[phase];
+            if (timing.getCount() > 0) {
+                System.out.printf("%-15s %8.1f %8.1f %8.1f%n", timing.getName(), timing.getP50Micros(),
+                        timing.getP99Micros(), timing.getMaxMicros());
+            }
+        }
+        if (capture != null) {
+            System.out.printf("captured %d frames to %s%n", capture.getWrittenCount(), capturePath);
+        }
+        System.out.printf("allocated %.0f B/tick%n", stats.getAllocatedBytesPerTick());
+        System.out.printf("state hash %016x%n", stateHash(world));
+    }
+
+    // steps world through every tick of log with the recorded input and delta
+    static void run(World world, InputLog log) {
+        for (int i = 0, n = log.getTickCount(); i < n; i++) {
+            world.setInput(log.getInput(i));
+            world.step(log.getDelta(i));
+        }
+    }
+
+    // as run, drawing the world after every tick into a frame of capture
+    static void run(World world, InputLog log, FrameCapture capture) {
+        SceneRenderer renderer = new SceneRenderer();
+        RenderSnapshot snapshot = new RenderSnapshot();
+        for (int i = 0, n = log.getTickCount(); i < n; i++) {
+            world.setInput(log.getInput(i));
+            world.step(log.getDelta(i));
+            BufferedImage frame = capture.acquire();
+            if (frame == null) {
+                continue;
+            }
+            // previous position = current one, the frame shows the tick itself with nothing interpolated
+            Vector2D player = world.getPlayer().getPosition();
+            snapshot.capture(world, player.getX(), player.getY(), System.nanoTime(), log.getDelta(i));
+            Graphics2D g2d = frame.createGraphics();
+            try {
+                renderer.render(g2d, snapshot, capture.getWidth(), capture.getHeight());
+            } finally {
+                g2d.dispose();
+            }
+            capture.submit(frame);
+        }
+    }
+
+    private static double gameSeconds(InputLog log) {
+        double seconds = 0;
+        for (int i = 0, n = log.getTickCount(); i < n; i++) {
+            seconds += log.getDelta(i);
+        }
+        return seconds;
+    }
+
+    // 64-bit fnv-1a style hash over the exact bits of the player, objects, movers, light levels and
+    // every shadow
+    static long stateHash(World world) {
+        long h = 0xCBF29CE484222325L;
+        h = mix(h, world.getGameTime());
+        Vector2D player = world.getPlayer().getPosition();
+        h = mix(h, player.getX());
+        h = mix(h, player.getY());
+
+        List<GameObject> objects = world.getObjects();
+        LightingEngine lighting = world.getLighting();
+        h = mix(h, lighting.getAmbientLight());
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            GameObject obj = objects.get(i);
+            h = mix(h, obj.getPosition().getX());
+            h = mix(h, obj.getPosition().getY());
+            h = mix(h, obj.getHeight());
+            h = mix(h, lighting.getObjectLight(i));
+        }
+        List<Shadow> shadows = lighting.getShadows();
+        for (int i = 0, n = shadows.size(); i < n; i++) {
+            h = mix(h, shadows.get(i));
+        }
+        PointLightBuffer pointLights = lighting.getPointLights();
+        for (int i = 0; i < pointLights.totalShadows; i++) {
+            h = mix(h, pointLights.shadows[i]);
+        }
+
+        MoverStore movers = world.getMovers();
+        for (int i = 0, n = movers.size(); i < n; i++) {
+            h = mix(h, movers.x[i]);
+            h = mix(h, movers.y[i]);
+            h = mix(h, movers.vx[i]);
+            h = mix(h, movers.vy[i]);
+            h = mix(h, movers.castsShadow[i] ? movers.shadowEndX[i] : 0);
+            h = mix(h, movers.castsShadow[i] ? movers.shadowEndY[i] : 0);
+            h = mix(h, movers.light[i]);
+        }
+        return h;
+    }
+
+    private static long mix(long h, Shadow shadow) {
+        h = mix(h, shadow.getStart().getX());
+        h = mix(h, shadow.getStart().getY());
+        h = mix(h, shadow.getEnd().getX());
+        h = mix(h, shadow.getEnd().getY());
+        return mix(h, shadow.getIntensity());
+    }
+
+    private static long mix(long h, double value) {
+        return (h ^ Double.doubleToLongBits(value)) * 0x100000001B3L;
+    }
+}
@@ -0,0 +1,269 @@
+package game;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+import static game.World.CELL_SIZE;
+
+// draws a RenderSnapshot onto any Graphics2D, shared by the passive Swing view and the active canvas.
+// the ground comes from the tile-cached lightmap and static objects from a cached layer that is only
+// redrawn when the snapshot reports a different object set, so a steady frame is two full-view blits
+// plus any movers, the player and celestial bodies
+public class SceneRenderer {
+    private static final Color SUN_COLOR = new Color(1.0f, 0.9f, 0.2f, 0.8f);
+    private static final Color MOON_COLOR = new Color(0.9f, 0.9f, 1.0f, 0.6f);
+    private static final Color PLAYER_COLOR = new Color(0, 0, 255, 255);
+
+    private Lightmap lightmap;
+    private SharedLightingBuffer sharedBuffer; // handed to every lightmap, null when not exporting
+    private FrameCapture capture; // receives every frame drawn at its size, null when not capturing
+    private BufferedImage droppedFrame; // drawn into instead when the capture has no free image
+    private double lightmapBudget; // milliseconds, see Lightmap.setTimeBudget
+
+    // lit object colours and reusable shapes, so drawing does no colour-space conversion or allocation
+    // once warm
+    private final ColorCache colorCache = new ColorCache();
+    private final Rectangle2D.Double rect = new Rectangle2D.Double();
+    private final Ellipse2D.Double ellipse = new Ellipse2D.Double();
+
+    // static object layer, rebuilt when objects change or the accelerated surface is lost
+    private VolatileImage objectLayer;
+    private int objectLayerVersion = -1;
+    private int objectLayerLightVersion = -1;
+    private double objectLayerOriginX;
+    private double objectLayerOriginY;
+    private double objectLayerZoom = 1.0;
+
+    // optional per-pass timing, null when not instrumented
+    private FrameStats stats;
+
+    public void setStats(FrameStats stats) {
+        this.stats = stats;
+    }
+
+    // exports the lightmap into buffer after each frame, see Lightmap.setSharedBuffer
+    public void setSharedBuffer(SharedLightingBuffer sharedBuffer) {
+        this.sharedBuffer = sharedBuffer;
+        if (lightmap != null) {
+            lightmap.setSharedBuffer(sharedBuffer);
+        }
+    }
+
+    // spreads lightmap relights over frames, reshading outwards from the player; 0 turns it off
+    public void setLightmapBudget(double millis) {
+        lightmapBudget = millis;
+        if (lightmap != null) {
+            lightmap.setTimeBudget(millis);
+        }
+    }
+
+    // draws frames into capture's pooled images and blits them to the target, so a captured frame costs
+    // one extra blit on the drawing thread and the encoding happens elsewhere. frames of another size than
+    // the capture are drawn straight to the target. a dropped frame still goes through an image of the
+    // same kind, so the cached object layer is not rebuilt for another device whenever a frame drops
+    public void setCapture(FrameCapture capture) {
+        this.capture = capture;
+    }
+
+    public void render(Graphics2D g2d, RenderSnapshot snapshot, int width, int height) {
+        BufferedImage frame = captureFrame(snapshot, width, height);
+        if (frame != null) {
+            g2d.drawImage(frame, 0, 0, null);
+        } else {
+            draw(g2d, snapshot, width, height);
+        }
+    }
+
+    // the capture half of render: when capturing at this size, draws the frame into a capture image,
+    // submits it and returns it for the caller to blit, as often as its target needs, before the next
+    // frame. otherwise returns null and the caller draws the frame itself with draw
+    BufferedImage captureFrame(RenderSnapshot snapshot, int width, int height) {
+        if (capture == null) {
+            return null;
+        }
+        if (width != capture.getWidth() || height != capture.getHeight()) {
+            capture.skip();
+            return null;
+        }
+        BufferedImage frame = capture.acquire();
+        boolean dropped = frame == null;
+        if (dropped) {
+            if (droppedFrame == null || droppedFrame.getWidth() != width || droppedFrame.getHeight() != height) {
+                droppedFrame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            frame = droppedFrame;
+        }
+        Graphics2D frameGraphics = frame.createGraphics();
+        try {
+            draw(frameGraphics, snapshot, width, height);
+        } finally {
+            frameGraphics.dispose();
+        }
+        if (!dropped) {
+            capture.submit(frame); // encoders only read it, so the caller may still blit it
+        }
+        return frame;
+    }
+
+    void draw(Graphics2D g2d, RenderSnapshot snapshot, int width, int height) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        long t = stats == null ? 0 : System.nanoTime();
+
+        // draw background with ambient lighting and shadows
+        drawLightmap(g2d, snapshot, width, height);
+        t = mark(FrameStats.DRAW_LIGHTMAP, t);
+
+        // draw objects, then the movers over them
+        drawObjectLayer(g2d, snapshot, width, height);
+        drawMovers(g2d, snapshot);
+        t = mark(FrameStats.DRAW_OBJECTS, t);
+
+        // draw celestial bodies
+        drawCelestialBodies(g2d, snapshot);
+        t = mark(FrameStats.DRAW_CELESTIAL, t);
+
+        // draw player
+        drawPlayer(g2d, snapshot);
+        mark(FrameStats.DRAW_PLAYER, t);
+
+        if (stats != null) {
+            stats.endFrame();
+        }
+    }
+
+    private long mark(int phase, long start) {
+        if (stats == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        stats.record(phase, now - start);
+        return now;
+    }
+
+    // ambient background, grid and shadows are rasterized into the lightmap and blitted in one call. dirty
+    // tiles only skip re-shading: the blit covers the whole view, because none of the targets (flip-chain
+    // back buffers, Swing's graphics, capture images) keeps the previous frame under the movers and player
+    private void drawLightmap(Graphics2D g2d, RenderSnapshot snapshot, int width, int height) {
+        if (lightmap == null || lightmap.getWidth() != width || lightmap.getHeight() != height) {
+            lightmap = new Lightmap(width, height);
+            if (sharedBuffer != null) {
+                lightmap.setSharedBuffer(sharedBuffer);
+            }
+            lightmap.setTimeBudget(lightmapBudget);
+        }
+        lightmap.setView(snapshot.viewOriginX, snapshot.viewOriginY, snapshot.viewZoom);
+        lightmap.setFocus((snapshot.playerX * CELL_SIZE - snapshot.viewOriginX) * snapshot.viewZoom,
+                (snapshot.playerY * CELL_SIZE - snapshot.viewOriginY) * snapshot.viewZoom);
+        lightmap.render(snapshot.ambientLight, snapshot.getShadows(), snapshot.pointLights);
+        g2d.drawImage(lightmap.getImage(), 0, 0, null);
+    }
+
+    private void drawObjectLayer(Graphics2D g2d, RenderSnapshot snapshot, int width, int height) {
+        GraphicsConfiguration config = g2d.getDeviceConfiguration();
+        do {
+            boolean rebuild = snapshot.objectsVersion != objectLayerVersion
+                    || snapshot.objectLightVersion != objectLayerLightVersion
+                    || snapshot.viewOriginX != objectLayerOriginX || snapshot.viewOriginY != objectLayerOriginY
+                    || snapshot.viewZoom != objectLayerZoom;
+            int status = objectLayer == null ? VolatileImage.IMAGE_INCOMPATIBLE : objectLayer.validate(config);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE
+                    || objectLayer.getWidth() != width || objectLayer.getHeight() != height) {
+                if (objectLayer != null) {
+                    objectLayer.flush();
+                }
+                objectLayer = config.createCompatibleVolatileImage(width, height, Transparency.TRANSLUCENT);
+                rebuild = true;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                rebuild = true;
+            }
+
+            if (rebuild) {
+                Graphics2D layer = objectLayer.createGraphics();
+                layer.setComposite(AlphaComposite.Clear);
+                layer.fillRect(0, 0, width, height);
+                layer.setComposite(AlphaComposite.SrcOver);
+                layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                drawObjects(layer, snapshot);
+                layer.dispose();
+                objectLayerVersion = snapshot.objectsVersion;
+                objectLayerLightVersion = snapshot.objectLightVersion;
+                objectLayerOriginX = snapshot.viewOriginX;
+                objectLayerOriginY = snapshot.viewOriginY;
+                objectLayerZoom = snapshot.viewZoom;
+            }
+            g2d.drawImage(objectLayer, 0, 0, null);
+        } while (objectLayer.contentsLost());
+    }
+
+    private void drawObjects(Graphics2D g2d, RenderSnapshot snapshot) {
+        double zoom = snapshot.viewZoom;
+        for (int i = 0; i < snapshot.objectCount; i++) {
+            int screenX = (int) ((snapshot.objectX[i] * CELL_SIZE - snapshot.viewOriginX) * zoom);
+            int screenY = (int) ((snapshot.objectY[i] * CELL_SIZE - snapshot.viewOriginY) * zoom);
+
+            // tops hidden from the light by a taller neighbour are drawn darker
+            g2d.setColor(colorCache.lit(snapshot.objectRgb[i], snapshot.objectLight[i]));
+            rect.setRect(screenX - 10 * zoom, screenY - 10 * zoom, 20 * zoom, 20 * zoom);
+            g2d.fill(rect);
+        }
+    }
+
+    // movers change every tick, so they are drawn directly rather than through a cached layer
+    private void drawMovers(Graphics2D g2d, RenderSnapshot snapshot) {
+        double zoom = snapshot.viewZoom;
+        for (int i = 0; i < snapshot.moverCount; i++) {
+            double size = snapshot.moverRadius[i] * 2 * CELL_SIZE * zoom;
+            g2d.setColor(colorCache.lit(snapshot.moverRgb[i], snapshot.moverLight[i]));
+            ellipse.setFrame(
+                    (snapshot.moverX[i] * CELL_SIZE - snapshot.viewOriginX) * zoom - size / 2,
+                    (snapshot.moverY[i] * CELL_SIZE - snapshot.viewOriginY) * zoom - size / 2,
+                    size,
+                    size);
+            g2d.fill(ellipse);
+        }
+    }
+
+    // the sky stays fixed on screen while the camera moves
+    private void drawCelestialBodies(Graphics2D g2d, RenderSnapshot snapshot) {
+        // draw sun
+        if (snapshot.sunVisible) {
+            g2d.setColor(SUN_COLOR);
+            ellipse.setFrame(
+                    snapshot.sunX - snapshot.sunSize / 2,
+                    snapshot.sunY - snapshot.sunSize / 2,
+                    snapshot.sunSize,
+                    snapshot.sunSize);
+            g2d.fill(ellipse);
+        }
+
+        // draw moon
+        if (snapshot.moonVisible) {
+            g2d.setColor(MOON_COLOR);
+            ellipse.setFrame(
+                    snapshot.moonX - snapshot.moonSize / 2,
+                    snapshot.moonY - snapshot.moonSize / 2,
+                    snapshot.moonSize,
+                    snapshot.moonSize);
+            g2d.fill(ellipse);
+        }
+    }
+
+    private void drawPlayer(Graphics2D g2d, RenderSnapshot snapshot) {
+        // interpolate between the last two ticks so motion stays smooth between simulation steps
+        double alpha = snapshot.alpha(System.nanoTime());
+        double playerX = snapshot.previousPlayerX + (snapshot.playerX - snapshot.previousPlayerX) * alpha;
+        double playerY = snapshot.previousPlayerY + (snapshot.playerY - snapshot.previousPlayerY) * alpha;
+        double zoom = snapshot.viewZoom;
+        g2d.setColor(PLAYER_COLOR);
+        ellipse.setFrame(
+                (playerX * CELL_SIZE - snapshot.viewOriginX) * zoom - 10 * zoom,
+                (playerY * CELL_SIZE - snapshot.viewOriginY) * zoom - 10 * zoom,
+                20 * zoom,
+                20 * zoom);
+        g2d.fill(ellipse);
+    }
+}
@@ -1,31 +1,63 @@
-package game;
-
-class Shadow {
-    private Vector2D start;
-    private Vector2D end;
-    private double intensity;
-    private Vector2D direction;
-
-    public Shadow(Vector2D start, Vector2D end, double intensity) {
-        this.start = start;
-        this.end = end;
-        this.intensity = intensity;
-        this.direction = end.subtract(start).normalize();
-    }
-
-    public Vector2D getStart() {
-        return start;
-    }
-
-    public Vector2D getEnd() {
-        return end;
-    }
-
-    public double getIntensity() {
-        return intensity;
-    }
-
-    public Vector2D getDirection() {
-        return direction;
-    }
+package game;
+
+import static game.LightingEngine.SHADOW_WIDTH;
+
+class Shadow {
+    private final MutableVector2D start;
+    private final MutableVector2D end;
+    private double intensity;
+    private final MutableVector2D direction;
+    private double width = SHADOW_WIDTH; // quad width in pixels, wider only for cluster impostors
+
+    public Shadow() {
+        this.start = new MutableVector2D();
+        this.end = new MutableVector2D();
+        this.direction = new MutableVector2D();
+    }
+
+    public Shadow(Vector2D start, Vector2D end, double intensity) {
+        this();
+        set(start.getX(), start.getY(), end.getX(), end.getY(), intensity);
+    }
+
+    // overwrites this shadow in place so it can be reused across frames
+    public Shadow set(double startX, double startY, double endX, double endY, double intensity) {
+        this.start.set(startX, startY);
+        this.end.set(endX, endY);
+        this.intensity = intensity;
+        this.direction.set(endX - startX, endY - startY).normalizeInPlace();
+        this.width = SHADOW_WIDTH;
+        return this;
+    }
+
+    public Shadow set(Shadow other) {
+        set(other.start.getX(), other.start.getY(), other.end.getX(), other.end.getY(), other.intensity);
+        this.width = other.width;
+        return this;
+    }
+
+    public Shadow setWidth(double width) {
+        this.width = width;
+        return this;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public Vector2D getStart() {
+        return start;
+    }
+
+    public Vector2D getEnd() {
+        return end;
+    }
+
+    public double getIntensity() {
+        return intensity;
+    }
+
+    public Vector2D getDirection() {
+        return direction;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package game;
+
+// output columns for bulk shadow computation, entry i belongs to object i of the source store
+public class ShadowBuffer {
+    double[] startX = new double[0];
+    double[] startY = new double[0];
+    double[] endX = new double[0];
+    double[] endY = new double[0];
+    double[] intensity = new double[0];
+    private int count;
+
+    // grows the columns to hold at least capacity shadows; existing contents are not preserved
+    public void ensureCapacity(int capacity) {
+        if (startX.length < capacity) {
+            startX = new double[capacity];
+            startY = new double[capacity];
+            endX = new double[capacity];
+            endY = new double[capacity];
+            intensity = new double[capacity];
+        }
+    }
+
+    void setCount(int count) {
+        this.count = count;
+    }
+
+    // number of valid entries, 0 when the light casts no shadows
+    public int getCount() {
+        return count;
+    }
+
+    public double getStartX(int i) {
+        return startX[i];
+    }
+
+    public double getStartY(int i) {
+        return startY[i];
+    }
+
+    public double getEndX(int i) {
+        return endX[i];
+    }
+
+    public double getEndY(int i) {
+        return endY[i];
+    }
+
+    public double getIntensity(int i) {
+        return intensity[i];
+    }
+}
@@ -0,0 +1,60 @@
+package game;
+
+import static game.LightingEngine.shadowIntensity;
+import static game.LightingEngine.shadowScale;
+import static game.World.CELL_SIZE;
+import static game.World.GRID_SIZE;
+
+// bulk form of LightingEngine.calculateShadow over an ObjectStore. the per-object loop is straight-line
+// math over primitive columns, with shadowScale's cap done by Math.min rather than a branch, so c2 can
+// unroll it. sqrt, divide and min all have vector forms, but whether superword vectorizes the loop depends
+// on the jdk and has not been verified; bulkKernel in ShadowBenchmark is the number to watch
+public final class ShadowKernel {
+
+    private ShadowKernel() {
+    }
+
+    // computes the shadow of every object in store into the same index of out
+    public static void computeShadows(ObjectStore store, CelestialBody celestialBody, ShadowBuffer out) {
+        int n = store.size();
+        out.ensureCapacity(n);
+        if (!celestialBody.isVisible()) {
+            out.setCount(0);
+            return;
+        }
+        out.setCount(n);
+
+        Vector2D celestialPos = celestialBody.getPosition();
+        double celestialX = celestialPos.getX();
+        double celestialY = celestialPos.getY();
+
+        // terms shared by every caster
+        double celestialHeight = celestialY - (GRID_SIZE * CELL_SIZE / 2.0);
+        double intensity = shadowIntensity(celestialHeight);
+
+        double[] xs = store.x;
+        double[] ys = store.y;
+        double[] heights = store.height;
+        double[] startX = out.startX;
+        double[] startY = out.startY;
+        double[] endX = out.endX;
+        double[] endY = out.endY;
+        double[] intensities = out.intensity;
+
+        for (int i = 0; i < n; i++) {
+            double objX = xs[i] * CELL_SIZE;
+            double objY = ys[i] * CELL_SIZE;
+            double toLightX = celestialX - objX;
+            double toLightY = celestialY - objY;
+            double toLightLength = Math.sqrt(toLightX * toLightX + toLightY * toLightY);
+
+            double scale = shadowScale(heights[i], toLightLength, celestialHeight);
+
+            startX[i] = objX;
+            startY[i] = objY;
+            endX[i] = objX + toLightX * scale;
+            endY[i] = objY + toLightY * scale;
+            intensities[i] = intensity;
+        }
+    }
+}
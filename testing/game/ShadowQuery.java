@@ -0,0 +1,376 @@
+package game;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static game.LightingEngine.SHADOW_WIDTH;
+import static game.World.CELESTIAL_RADIUS;
+import static game.World.CELL_SIZE;
+
+// answers "how lit is the ground at (x, y)" for any sun angle without rendering. the casters are copied
+// into an ObjectStore, setSunAngle computes their shadows with ShadowKernel and files them in a uniform
+// grid, and a point's light level is the ambient light darkened by the strongest shadow over it, the
+// model Lightmap rasterizes (without its 8-bit rounding). point lights are not included
+//
+// batches are sorted by grid cell first, so each shadow is tested against a contiguous run of points in
+// a branch-free loop c2 can unroll and vectorize, and cells can be split across threads. an instance is
+// not thread-safe; queries must not overlap with each other or with setCasters / setSunAngle
+public class ShadowQuery {
+    static final double DEFAULT_CELL_SIZE = 1.0; // grid units per index cell
+
+    // buildIndex doubles the cell size until the index has at most this many cells per shadow, or
+    // MIN_INDEX_CELLS, so shadows spread over a large world cost memory in proportion to their count
+    static final int MAX_CELLS_PER_SHADOW = 4;
+    static final int MIN_INDEX_CELLS = 4096;
+
+    // batches smaller than this are never split across threads
+    static final int DEFAULT_SEQUENTIAL_CUTOFF = 16384;
+
+    // pushes the alpha of a point outside a quad far below 0 per pixel outside, instead of branching on
+    // it; only points within 1e-12 px of an edge come out differently from the exact test
+    private static final double OUTSIDE_PENALTY = 1e12;
+
+    private final double cellPixels; // smallest index cell, used whenever the index stays within the cap
+    private ObjectStore casters = new ObjectStore();
+    private final ShadowBuffer shadows = new ShadowBuffer();
+
+    // light at the selected angle
+    private double ambientLight;
+    private double startAlpha; // darkening at a shadow's start, 0..1
+
+    // shadows of index cell c are shadowItems[cellStart[c]] .. shadowItems[cellStart[c + 1] - 1]
+    private int[] cellStart = new int[1];
+    private int[] shadowItems = new int[0];
+    private double gridMinX; // pixels
+    private double gridMinY;
+    private double gridCellPixels; // cell size of the last build
+    private int columns;
+    private int rows;
+
+    // batch scratch, points reordered by cell
+    private int[] pointCell = new int[0];
+    private int[] order = new int[0];
+    private int[] pointStart = new int[1];
+    private double[] sortedX = new double[0];
+    private double[] sortedY = new double[0];
+    private double[] alpha = new double[0];
+
+    // parallel mode, null pool means every batch runs on the calling thread
+    private ForkJoinPool pool;
+    private int sequentialCutoff = DEFAULT_SEQUENTIAL_CUTOFF;
+
+    public ShadowQuery() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public ShadowQuery(double cellSize) {
+        this.cellPixels = cellSize * CELL_SIZE;
+    }
+
+    public static ShadowQuery of(List<GameObject> objects, double sunAngle) {
+        ShadowQuery query = new ShadowQuery();
+        query.setCasters(objects);
+        query.setSunAngle(sunAngle);
+        return query;
+    }
+
+    // orbit angle of the sun elapsedSeconds after a World started, the moon trails it by half a turn.
+    // World.getGameTime wraps at DAY_LENGTH while the orbit wraps at 2 pi, so this takes unwrapped time
+    public static double sunAngleAt(double elapsedSeconds) {
+        double angle = elapsedSeconds % (2 * Math.PI);
+        return angle < 0 ? angle + 2 * Math.PI : angle;
+    }
+
+    // parallelism <= 1 switches back to sequential batches
+    public void setParallelism(int parallelism) {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    public void setSequentialCutoff(int sequentialCutoff) {
+        this.sequentialCutoff = Math.max(1, sequentialCutoff);
+    }
+
+    // copies the casters, later changes to the objects are not seen until the next call. call
+    // setSunAngle afterwards to recompute the shadows
+    public void setCasters(List<GameObject> objects) {
+        casters = ObjectStore.of(objects);
+    }
+
+    public void setCasters(ObjectStore store) {
+        casters = store;
+    }
+
+    // computes every shadow for the sun at sunAngle (the moon when the sun is below the horizon, as in
+    // World.getActiveCelestialBody) and rebuilds the index over them
+    public void setSunAngle(double sunAngle) {
+        CelestialBody sun = new CelestialBody(sunAngle, true, CELESTIAL_RADIUS, CELESTIAL_RADIUS, CELESTIAL_RADIUS);
+        CelestialBody body = sun.isVisible() ? sun
+                : new CelestialBody(sunAngle + Math.PI, false, CELESTIAL_RADIUS, CELESTIAL_RADIUS,
+                        CELESTIAL_RADIUS);
+        double celestialHeight = body.getPosition().getY() - CELESTIAL_RADIUS;
+        ambientLight = LightingEngine.ambientLight(celestialHeight);
+        startAlpha = Math.min(0.5 * LightingEngine.shadowIntensity(celestialHeight), 1.0);
+        ShadowKernel.computeShadows(casters, body, shadows);
+        buildIndex();
+    }
+
+    public double getAmbientLight() {
+        return ambientLight;
+    }
+
+    public int getShadowCount() {
+        return shadows.getCount();
+    }
+
+    // files each shadow under the cells its quad may cover, counting sort in two passes. a long
+    // diagonal shadow crosses far fewer cells than its bounding box, so each row of the box only gets
+    // the columns the shadow's segment, widened by half the quad width, passes through
+    private void buildIndex() {
+        int n = shadows.getCount();
+        double half = SHADOW_WIDTH / 2;
+        if (n == 0) {
+            columns = 0;
+            rows = 0;
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, Math.min(shadows.startX[i], shadows.endX[i]));
+            minY = Math.min(minY, Math.min(shadows.startY[i], shadows.endY[i]));
+            maxX = Math.max(maxX, Math.max(shadows.startX[i], shadows.endX[i]));
+            maxY = Math.max(maxY, Math.max(shadows.startY[i], shadows.endY[i]));
+        }
+        gridMinX = minX - half;
+        gridMinY = minY - half;
+        double width = maxX + half - gridMinX, height = maxY + half - gridMinY;
+        // measured in doubles, which cannot overflow however far apart the shadows are
+        long maxCells = Math.max(MIN_INDEX_CELLS, (long) MAX_CELLS_PER_SHADOW * n);
+        gridCellPixels = cellPixels;
+        while ((Math.floor(width / gridCellPixels) + 1) * (Math.floor(height / gridCellPixels) + 1) > maxCells) {
+            gridCellPixels *= 2;
+        }
+        columns = (int) (width / gridCellPixels) + 1;
+        rows = (int) (height / gridCellPixels) + 1;
+
+        int cells = Math.toIntExact((long) columns * rows);
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        int total = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < n; i++) {
+                double sx = shadows.startX[i], sy = shadows.startY[i];
+                double dx = shadows.endX[i] - sx, dy = shadows.endY[i] - sy;
+                int minRow = row(Math.min(sy, sy + dy) - half);
+                int maxRow = row(Math.max(sy, sy + dy) + half);
+                for (int r = minRow; r <= maxRow; r++) {
+                    // part of the segment within half a quad width of the row's band
+                    double bandMin = gridMinY + r * gridCellPixels - half;
+                    double bandMax = bandMin + gridCellPixels + 2 * half;
+                    double t0 = 0, t1 = 1;
+                    if (dy != 0) {
+                        double ta = (bandMin - sy) / dy, tb = (bandMax - sy) / dy;
+                        t0 = Math.max(0, Math.min(ta, tb));
+                        t1 = Math.min(1, Math.max(ta, tb));
+                    }
+                    double x0 = sx + t0 * dx, x1 = sx + t1 * dx;
+                    int minColumn = column(Math.min(x0, x1) - half);
+                    int maxColumn = column(Math.max(x0, x1) + half);
+                    for (int c = minColumn; c <= maxColumn; c++) {
+                        int cell = r * columns + c;
+                        if (pass == 0) {
+                            cellStart[cell + 1]++;
+                        } else {
+                            shadowItems[--cellStart[cell + 1]] = i;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int c = 0; c < cells; c++) {
+                    cellStart[c + 1] += cellStart[c];
+                }
+                total = cellStart[cells];
+                if (shadowItems.length < total) {
+                    shadowItems = new int[total];
+                }
+            }
+        }
+        // the fill pass left cellStart shifted by one cell
+        System.arraycopy(cellStart, 1, cellStart, 0, cells);
+        cellStart[cells] = total;
+    }
+
+    private int column(double px) {
+        return Math.min(columns - 1, Math.max(0, (int) ((px - gridMinX) / gridCellPixels)));
+    }
+
+    private int row(double py) {
+        return Math.min(rows - 1, Math.max(0, (int) ((py - gridMinY) / gridCellPixels)));
+    }
+
+    // index cell of a point in pixels, -1 outside the indexed area where no shadow reaches
+    private int cellOf(double px, double py) {
+        double cx = (px - gridMinX) / gridCellPixels;
+        double cy = (py - gridMinY) / gridCellPixels;
+        if (!(cx >= 0 && cy >= 0 && cx < columns && cy < rows)) {
+            return -1;
+        }
+        return (int) cy * columns + (int) cx;
+    }
+
+    // light level of the ground at (x, y) in grid units, from 0 (dark) to the ambient light
+    public double lightAt(double x, double y) {
+        double px = x * CELL_SIZE, py = y * CELL_SIZE;
+        int cell = cellOf(px, py);
+        if (cell < 0) {
+            return ambientLight;
+        }
+        double darkest = 0;
+        for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+            darkest = Math.max(darkest, shadowAlpha(shadowItems[k], px, py));
+        }
+        return ambientLight * (1 - darkest);
+    }
+
+    private double shadowAlpha(int i, double px, double py) {
+        double sx = shadows.startX[i], sy = shadows.startY[i];
+        double dx = shadows.endX[i] - sx, dy = shadows.endY[i] - sy;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) {
+            return 0;
+        }
+        dx /= length;
+        dy /= length;
+        double rx = px - sx, ry = py - sy;
+        double along = rx * dx + ry * dy;
+        double across = ry * dx - rx * dy;
+        if (along < 0 || along > length || Math.abs(across) > SHADOW_WIDTH / 2) {
+            return 0;
+        }
+        return startAlpha * (1 - along / length);
+    }
+
+    // light levels of points [0, count) of xs / ys (grid units) into out, as lightAt
+    public void lightAt(double[] xs, double[] ys, int count, float[] out) {
+        if (count == 0) {
+            return;
+        }
+        ensureScratch(count);
+        int cells = columns * rows; // within MAX_CELLS_PER_SHADOW per shadow, see buildIndex
+        if (pointStart.length < cells + 2) {
+            pointStart = new int[cells + 2];
+        } else {
+            Arrays.fill(pointStart, 0, cells + 2, 0);
+        }
+
+        // counting sort of the points by cell, points outside the index go to a bucket after the last cell
+        int outside = cells;
+        for (int i = 0; i < count; i++) {
+            int cell = cellOf(xs[i] * CELL_SIZE, ys[i] * CELL_SIZE);
+            if (cell < 0) {
+                cell = outside;
+            }
+            pointCell[i] = cell;
+            pointStart[cell + 1]++;
+        }
+        for (int c = 0; c <= cells; c++) {
+            pointStart[c + 1] += pointStart[c];
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            int k = --pointStart[pointCell[i] + 1];
+            order[k] = i;
+            sortedX[k] = xs[i] * CELL_SIZE;
+            sortedY[k] = ys[i] * CELL_SIZE;
+        }
+        System.arraycopy(pointStart, 1, pointStart, 0, cells + 1);
+        pointStart[cells + 1] = count;
+        Arrays.fill(alpha, 0, count, 0);
+
+        if (pool == null || count < sequentialCutoff) {
+            shadeCells(0, cells);
+        } else {
+            pool.invoke(new CellTask(0, cells));
+        }
+
+        float ambient = (float) ambientLight;
+        for (int k = 0; k < count; k++) {
+            out[order[k]] = (float) (ambient * (1 - alpha[k]));
+        }
+    }
+
+    private void ensureScratch(int count) {
+        if (order.length < count) {
+            pointCell = new int[count];
+            order = new int[count];
+            sortedX = new double[count];
+            sortedY = new double[count];
+            alpha = new double[count];
+        }
+    }
+
+    // for every shadow of every cell, darkens the cell's points in one pass with no branches on the
+    // point, so the inner loop is straight-line math over contiguous arrays
+    private void shadeCells(int fromCell, int toCell) {
+        double halfWidth = SHADOW_WIDTH / 2;
+        for (int cell = fromCell; cell < toCell; cell++) {
+            int from = pointStart[cell], to = pointStart[cell + 1];
+            if (from == to) {
+                continue;
+            }
+            for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                int s = shadowItems[k];
+                double sx = shadows.startX[s], sy = shadows.startY[s];
+                double dx = shadows.endX[s] - sx, dy = shadows.endY[s] - sy;
+                double length = Math.sqrt(dx * dx + dy * dy);
+                if (length == 0) {
+                    continue;
+                }
+                dx /= length;
+                dy /= length;
+                double alphaPerUnit = startAlpha / length;
+                // past the end the fade itself is below 0, only the other three edges need the penalty
+                for (int p = from; p < to; p++) {
+                    double rx = sortedX[p] - sx, ry = sortedY[p] - sy;
+                    double along = rx * dx + ry * dy;
+                    double across = ry * dx - rx * dy;
+                    double outside = Math.max(-along, 0) + Math.max(Math.abs(across) - halfWidth, 0);
+                    alpha[p] = Math.max(alpha[p], startAlpha - along * alphaPerUnit - outside * OUTSIDE_PENALTY);
+                }
+            }
+        }
+    }
+
+    // splits the cell range in halves until it holds few enough points
+    private final class CellTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        CellTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || pointStart[to] - pointStart[from] <= sequentialCutoff) {
+                shadeCells(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CellTask(from, mid), new CellTask(mid, to));
+        }
+    }
+}
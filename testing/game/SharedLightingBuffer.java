@@ -0,0 +1,241 @@
+package game;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// off-heap copy of the lighting results that other code and other processes read without copying or
+// parsing: the frame's shadow geometry, written by World after each lighting update, and the lit ground,
+// written by Lightmap after each render. backed by a direct buffer or, for a sidecar process, a mapped
+// file. layout, little-endian:
+//   header (64 bytes): magic "LGTS", int version, int shadow capacity, int lightmap width, int lightmap
+//     height, 4 reserved bytes, long shadow sequence, long lightmap sequence, int shadow count,
+//     float ambient light, 16 reserved bytes
+//   shadows: shadow capacity x float[6] start x, start y, end x, end y, intensity, width (pixels)
+//   lightmap: width x height int 0xRRGGBB, row-major
+// each section has its own seqlock: the writer makes the sequence odd, writes, then makes it even again,
+// so a reader that sees the same even sequence before and after reading has a consistent copy. there is
+// one writer per section, the simulation thread for shadows and the render thread for the lightmap
+public final class SharedLightingBuffer {
+    static final int MAGIC = 0x4C475453; // "LGTS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int SHADOW_FLOATS = 6;
+
+    private static final int SHADOW_SEQUENCE_OFFSET = 24;
+    private static final int LIGHTMAP_SEQUENCE_OFFSET = 32;
+    private static final int SHADOW_COUNT_OFFSET = 40;
+    private static final int AMBIENT_OFFSET = 44;
+
+    // ordered access to the sequence words, also between processes sharing a mapping
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buffer;
+    private final int shadowCapacity;
+    private final int width;
+    private final int height;
+    private final FloatBuffer shadows; // views over the sections, absolute access only
+    private final IntBuffer pixels;
+
+    private SharedLightingBuffer(ByteBuffer buffer, int shadowCapacity, int width, int height) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.shadowCapacity = shadowCapacity;
+        this.width = width;
+        this.height = height;
+        this.shadows = slice(buffer, HEADER_BYTES, shadowBytes(shadowCapacity)).asFloatBuffer();
+        this.pixels = slice(buffer, HEADER_BYTES + shadowBytes(shadowCapacity), (long) width * height * Integer.BYTES)
+                .asIntBuffer();
+    }
+
+    // in-process buffer outside the java heap
+    public static SharedLightingBuffer allocate(int shadowCapacity, int width, int height) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(byteSize(shadowCapacity, width, height)));
+        return initialize(buffer, shadowCapacity, width, height);
+    }
+
+    // buffer backed by a file, created or resized as needed, that another process can map with open()
+    public static SharedLightingBuffer create(Path path, int shadowCapacity, int width, int height)
+            throws IOException {
+        long bytes = byteSize(shadowCapacity, width, height);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            return initialize(buffer, shadowCapacity, width, height);
+        }
+    }
+
+    // maps a buffer another process created, read-only
+    public static SharedLightingBuffer open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("not a shared lighting buffer: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("not a shared lighting buffer: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("unsupported shared lighting buffer version " + version + ": " + path);
+            }
+            int shadowCapacity = buffer.getInt(8);
+            int width = buffer.getInt(12);
+            int height = buffer.getInt(16);
+            if (shadowCapacity < 0 || width < 0 || height < 0
+                    || channel.size() < byteSize(shadowCapacity, width, height)) {
+                throw new IOException("truncated shared lighting buffer: " + path);
+            }
+            return new SharedLightingBuffer(buffer, shadowCapacity, width, height);
+        }
+    }
+
+    private static SharedLightingBuffer initialize(ByteBuffer buffer, int shadowCapacity, int width, int height) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, shadowCapacity).putInt(12, width).putInt(16, height);
+        return new SharedLightingBuffer(buffer, shadowCapacity, width, height);
+    }
+
+    static long byteSize(int shadowCapacity, int width, int height) {
+        return HEADER_BYTES + shadowBytes(shadowCapacity) + (long) width * height * Integer.BYTES;
+    }
+
+    private static long shadowBytes(int shadowCapacity) {
+        return (long) shadowCapacity * SHADOW_FLOATS * Float.BYTES;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, long bytes) {
+        return buffer.slice(Math.toIntExact(offset), Math.toIntExact(bytes)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // writes the frame's shadows, the first getShadowCapacity() of them when there are more
+    public void writeShadows(double ambientLight, List<Shadow> source) {
+        int n = Math.min(source.size(), shadowCapacity);
+        long sequence = beginWrite(SHADOW_SEQUENCE_OFFSET);
+        for (int i = 0; i < n; i++) {
+            Shadow shadow = source.get(i);
+            int base = i * SHADOW_FLOATS;
+            shadows.put(base, (float) shadow.getStart().getX());
+            shadows.put(base + 1, (float) shadow.getStart().getY());
+            shadows.put(base + 2, (float) shadow.getEnd().getX());
+            shadows.put(base + 3, (float) shadow.getEnd().getY());
+            shadows.put(base + 4, (float) shadow.getIntensity());
+            shadows.put(base + 5, (float) shadow.getWidth());
+        }
+        buffer.putInt(SHADOW_COUNT_OFFSET, n);
+        buffer.putFloat(AMBIENT_OFFSET, (float) ambientLight);
+        endWrite(SHADOW_SEQUENCE_OFFSET, sequence);
+    }
+
+    // the lightmap is written as a batch of rectangles, the tiles Lightmap reshaded in a render:
+    // beginLightmap(), writeLightmap() per tile, then endLightmap() with the returned sequence
+    long beginLightmap() {
+        return beginWrite(LIGHTMAP_SEQUENCE_OFFSET);
+    }
+
+    // copies columns [minX, maxX] of rows [minY, maxY] from a sourceWidth-wide pixel array, clipped to
+    // the buffer
+    void writeLightmap(int[] source, int sourceWidth, int minX, int minY, int maxX, int maxY) {
+        maxX = Math.min(maxX, width - 1);
+        maxY = Math.min(maxY, height - 1);
+        for (int y = minY; y <= maxY && minX <= maxX; y++) {
+            pixels.put(y * width + minX, source, y * sourceWidth + minX, maxX - minX + 1);
+        }
+    }
+
+    void endLightmap(long sequence) {
+        endWrite(LIGHTMAP_SEQUENCE_OFFSET, sequence);
+    }
+
+    private long beginWrite(int offset) {
+        long sequence = (long) LONGS.getOpaque(buffer, offset) + 1;
+        LONGS.setOpaque(buffer, offset, sequence); // odd: write in progress
+        VarHandle.storeStoreFence();
+        return sequence;
+    }
+
+    private void endWrite(int offset, long sequence) {
+        LONGS.setRelease(buffer, offset, sequence + 1);
+    }
+
+    // copies the shadows into out (getShadowCount() * SHADOW_FLOATS floats, see the layout) and returns
+    // their count, retrying while a write is in progress
+    public int readShadows(float[] out) {
+        while (true) {
+            long before = (long) LONGS.getAcquire(buffer, SHADOW_SEQUENCE_OFFSET);
+            if ((before & 1) == 0) {
+                int n = Math.min(buffer.getInt(SHADOW_COUNT_OFFSET), out.length / SHADOW_FLOATS);
+                shadows.get(0, out, 0, n * SHADOW_FLOATS);
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getOpaque(buffer, SHADOW_SEQUENCE_OFFSET) == before) {
+                    return n;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // copies the lightmap into out (width x height), retrying while a write is in progress
+    public void readLightmap(int[] out) {
+        while (true) {
+            long before = (long) LONGS.getAcquire(buffer, LIGHTMAP_SEQUENCE_OFFSET);
+            if ((before & 1) == 0) {
+                pixels.get(0, out, 0, Math.min(out.length, width * height));
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getOpaque(buffer, LIGHTMAP_SEQUENCE_OFFSET) == before) {
+                    return;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // zero-copy access: read-only views over the sections. a reader checks that getShadowSequence() /
+    // getLightmapSequence() was even and unchanged around its reads, as readShadows does
+    public FloatBuffer shadowView() {
+        return shadows.asReadOnlyBuffer();
+    }
+
+    public IntBuffer lightmapView() {
+        return pixels.asReadOnlyBuffer();
+    }
+
+    public long getShadowSequence() {
+        return (long) LONGS.getAcquire(buffer, SHADOW_SEQUENCE_OFFSET);
+    }
+
+    public long getLightmapSequence() {
+        return (long) LONGS.getAcquire(buffer, LIGHTMAP_SEQUENCE_OFFSET);
+    }
+
+    // count and ambient of the last completed shadow write, only consistent with it under the seqlock
+    public int getShadowCount() {
+        return buffer.getInt(SHADOW_COUNT_OFFSET);
+    }
+
+    public float getAmbientLight() {
+        return buffer.getFloat(AMBIENT_OFFSET);
+    }
+
+    public int getShadowCapacity() {
+        return shadowCapacity;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
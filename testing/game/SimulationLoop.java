@@ -0,0 +1,126 @@
+package game;
+
+import java.util.concurrent.locks.LockSupport;
+
+// runs World.step on a dedicated thread at a fixed tick rate. wall-clock time feeds an accumulator that
+// is drained in whole ticks, so simulation speed does not depend on how long painting takes. after
+// each batch of ticks the loop publishes a RenderSnapshot the view reads without locking
+public class SimulationLoop implements Runnable {
+    static final double DEFAULT_TICK_RATE = 60.0;
+
+    // upper bound on catch-up ticks per wake-up, after a long stall the backlog is dropped instead
+    private static final int MAX_TICKS_PER_WAKE = 5;
+
+    private final World world;
+    private final double tickSeconds;
+    private final TripleBuffer<RenderSnapshot> snapshots;
+
+    private ViewCuller culler; // null publishes the whole world
+    private InputRecorder recorder; // null records nothing
+
+    private volatile int input;
+    private volatile boolean running;
+    private Thread thread;
+
+    public SimulationLoop(World world) {
+        this(world, DEFAULT_TICK_RATE);
+    }
+
+    public SimulationLoop(World world, double tickRate) {
+        this.world = world;
+        this.tickSeconds = 1.0 / tickRate;
+        this.snapshots = new TripleBuffer<>(new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot());
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // callable from any thread, picked up at the next tick
+    public void setInput(int input) {
+        this.input = input;
+    }
+
+    // culls published snapshots to the camera's view, call before start()
+    public void setCamera(Camera camera) {
+        culler = camera == null ? null : new ViewCuller(camera);
+    }
+
+    // logs the input and delta of every tick stepped, call before start(). the caller closes it
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public double getTickSeconds() {
+        return tickSeconds;
+    }
+
+    @Override
+    public void run() {
+        long tickNanos = (long) (tickSeconds * 1e9);
+        long previous = System.nanoTime();
+        long accumulator = 0;
+
+        while (running) {
+            long now = System.nanoTime();
+            accumulator = Math.min(accumulator + (now - previous), MAX_TICKS_PER_WAKE * tickNanos);
+            previous = now;
+
+            if (accumulator >= tickNanos) {
+                Vector2D player = world.getPlayer().getPosition();
+                double previousX = player.getX();
+                double previousY = player.getY();
+                while (accumulator >= tickNanos) {
+                    previousX = player.getX();
+                    previousY = player.getY();
+                    int tickInput = input;
+                    world.setInput(tickInput);
+                    if (recorder != null) {
+                        recorder.record(tickInput, tickSeconds);
+                    }
+                    world.step(tickSeconds);
+                    accumulator -= tickNanos;
+                }
+                publish(previousX, previousY);
+            }
+
+            LockSupport.parkNanos(tickNanos - accumulator);
+        }
+    }
+
+    // captures the current world state for the reader; on the simulation thread once started
+    void publish(double previousPlayerX, double previousPlayerY) {
+        RenderSnapshot snapshot = snapshots.back();
+        snapshot.capture(world, previousPlayerX, previousPlayerY, System.nanoTime(), tickSeconds, culler);
+        snapshots.publish();
+    }
+
+    // publishes the current state with no motion to interpolate, for use before the loop is started
+    void publishNow() {
+        Vector2D player = world.getPlayer().getPosition();
+        publish(player.getX(), player.getY());
+    }
+
+    // latest published snapshot; only ever called from the single reader (the edt)
+    RenderSnapshot latestSnapshot() {
+        return snapshots.front();
+    }
+}
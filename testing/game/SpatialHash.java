@@ -0,0 +1,272 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// uniform spatial hash over object bounds for broad-phase queries. cells are keyed on integer cell
+// coordinates so the world is unbounded; an object is filed in every cell its bounding box overlaps. a cell
+// is deleted once its last object leaves, so a streamed world only holds cells of the resident chunks
+public class SpatialHash {
+    private static final int INITIAL_TABLE_SIZE = 64;
+    private static final int MAX_SPARE_BUCKETS = 64;
+
+    private final double cellSize;
+    private final Map<GameObject, Entry> entries;
+
+    // open-addressed cell table, keys are packed cell coordinates
+    private long[] keys;
+    private Object[] buckets;
+    private boolean[] used;
+    private int cellCount;
+    // buckets of deleted cells, reused for new ones so objects moving across cells do not allocate
+    private final ArrayList<ArrayList<Entry>> spareBuckets = new ArrayList<>();
+
+    private double maxRadius;
+    private int queryStamp;
+
+    private static final class Entry {
+        final GameObject obj;
+        int minCellX, minCellY, maxCellX, maxCellY;
+        int stamp;
+
+        Entry(GameObject obj) {
+            this.obj = obj;
+        }
+    }
+
+    public SpatialHash(double cellSize) {
+        this.cellSize = cellSize;
+        this.entries = new IdentityHashMap<>();
+        this.keys = new long[INITIAL_TABLE_SIZE];
+        this.buckets = new Object[INITIAL_TABLE_SIZE];
+        this.used = new boolean[INITIAL_TABLE_SIZE];
+    }
+
+    public static SpatialHash of(List<GameObject> objects, double cellSize) {
+        SpatialHash hash = new SpatialHash(cellSize);
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            hash.insert(objects.get(i));
+        }
+        return hash;
+    }
+
+    public void insert(GameObject obj) {
+        if (entries.containsKey(obj)) {
+            return;
+        }
+        Entry entry = new Entry(obj);
+        entries.put(obj, entry);
+        maxRadius = Math.max(maxRadius, obj.getRadius());
+        computeCells(entry);
+        forEachCell(entry, true);
+    }
+
+    public void remove(GameObject obj) {
+        Entry entry = entries.remove(obj);
+        if (entry != null) {
+            forEachCell(entry, false);
+        }
+    }
+
+    // refiles obj after its position or radius changed; only touches buckets if its cell range changed
+    public void move(GameObject obj) {
+        Entry entry = entries.get(obj);
+        if (entry == null) {
+            insert(obj);
+            return;
+        }
+        int minX = entry.minCellX, minY = entry.minCellY, maxX = entry.maxCellX, maxY = entry.maxCellY;
+        maxRadius = Math.max(maxRadius, obj.getRadius());
+        computeCells(entry);
+        if (minX == entry.minCellX && minY == entry.minCellY && maxX == entry.maxCellX && maxY == entry.maxCellY) {
+            return;
+        }
+
+        // drop from the old range, then file under the new one
+        int newMinX = entry.minCellX, newMinY = entry.minCellY, newMaxX = entry.maxCellX, newMaxY = entry.maxCellY;
+        entry.minCellX = minX;
+        entry.minCellY = minY;
+        entry.maxCellX = maxX;
+        entry.maxCellY = maxY;
+        forEachCell(entry, false);
+        entry.minCellX = newMinX;
+        entry.minCellY = newMinY;
+        entry.maxCellX = newMaxX;
+        entry.maxCellY = newMaxY;
+        forEachCell(entry, true);
+    }
+
+    public boolean contains(GameObject obj) {
+        return entries.containsKey(obj);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // cells holding at least one object
+    int getCellCount() {
+        return cellCount;
+    }
+
+    // largest radius ever inserted, used to pad queries so no overlapping object is missed
+    public double getMaxRadius() {
+        return maxRadius;
+    }
+
+    // appends every object whose bounds may overlap the box to out, each at most once
+    public void query(double minX, double minY, double maxX, double maxY, List<GameObject> out) {
+        int stamp = ++queryStamp;
+        int minCellX = cell(minX), minCellY = cell(minY), maxCellX = cell(maxX), maxCellY = cell(maxY);
+        for (int cy = minCellY; cy <= maxCellY; cy++) {
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                ArrayList<Entry> bucket = bucket(key(cx, cy), false);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0, n = bucket.size(); i < n; i++) {
+                    Entry entry = bucket.get(i);
+                    if (entry.stamp != stamp) {
+                        entry.stamp = stamp;
+                        out.add(entry.obj);
+                    }
+                }
+            }
+        }
+    }
+
+    // objects that may touch a circle, padded by the largest object radius
+    public void queryRadius(double x, double y, double radius, List<GameObject> out) {
+        double reach = radius + maxRadius;
+        query(x - reach, y - reach, x + reach, y + reach, out);
+    }
+
+    private void computeCells(Entry entry) {
+        Vector2D pos = entry.obj.getPosition();
+        double r = entry.obj.getRadius();
+        entry.minCellX = cell(pos.getX() - r);
+        entry.minCellY = cell(pos.getY() - r);
+        entry.maxCellX = cell(pos.getX() + r);
+        entry.maxCellY = cell(pos.getY() + r);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEachCell(Entry entry, boolean add) {
+        for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++) {
+            for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++) {
+                if (add) {
+                    bucket(key(cx, cy), true).add(entry);
+                    continue;
+                }
+                int slot = find(key(cx, cy));
+                if (slot >= 0) {
+                    ArrayList<Entry> bucket = (ArrayList<Entry>) buckets[slot];
+                    bucket.remove(entry);
+                    if (bucket.isEmpty()) {
+                        deleteSlot(slot);
+                    }
+                }
+            }
+        }
+    }
+
+    private int cell(double coord) {
+        return (int) Math.floor(coord / cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    // slot of the cell with key, or -1 when it holds no objects
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // linear-probing lookup, optionally creating the cell
+    @SuppressWarnings("unchecked")
+    private ArrayList<Entry> bucket(long key, boolean create) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return (ArrayList<Entry>) buckets[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return null;
+        }
+        if ((cellCount + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+            return bucket(key, true);
+        }
+        int spare = spareBuckets.size();
+        ArrayList<Entry> bucket = spare > 0 ? spareBuckets.remove(spare - 1) : new ArrayList<>(2);
+        used[slot] = true;
+        keys[slot] = key;
+        buckets[slot] = bucket;
+        cellCount++;
+        return bucket;
+    }
+
+    // backward-shift deletion: later cells of the probe run move up into the hole unless that would put
+    // them before their home slot, so lookups never need tombstones
+    @SuppressWarnings("unchecked")
+    private void deleteSlot(int slot) {
+        if (spareBuckets.size() < MAX_SPARE_BUCKETS) {
+            spareBuckets.add((ArrayList<Entry>) buckets[slot]);
+        }
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                buckets[hole] = buckets[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        buckets[hole] = null;
+        cellCount--;
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        Object[] oldBuckets = buckets;
+        boolean[] oldUsed = used;
+        keys = new long[tableSize];
+        buckets = new Object[tableSize];
+        used = new boolean[tableSize];
+        int mask = tableSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                buckets[slot] = oldBuckets[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,115 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// runs mover systems in stages: stages run one after another, the systems of a stage are independent
+// and run side by side, and each system's id range is split into batches across the pool. every
+// system's prepare runs on the calling thread before its stage starts
+public class SystemScheduler {
+    // id ranges smaller than this are never split across threads
+    static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final List<MoverSystem[]> stages = new ArrayList<>();
+
+    // parallel mode, null pool means every stage runs on the calling thread
+    private ForkJoinPool pool;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    // appends a stage whose systems touch disjoint columns and may run concurrently
+    public void addStage(MoverSystem... systems) {
+        stages.add(systems.clone());
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    // parallelism <= 1 switches back to sequential updates
+    public void setParallelism(int parallelism) {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    // also the leaf size of the fork-join split
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void run(MoverStore movers, double deltaTime) {
+        int n = movers.size();
+        for (int s = 0, stageCount = stages.size(); s < stageCount; s++) {
+            MoverSystem[] stage = stages.get(s);
+            for (MoverSystem system : stage) {
+                system.prepare(movers, deltaTime);
+            }
+            if (pool == null || n < batchSize) {
+                for (MoverSystem system : stage) {
+                    system.update(movers, 0, n, deltaTime);
+                }
+            } else {
+                pool.invoke(new StageTask(stage, movers, n, deltaTime));
+            }
+        }
+    }
+
+    // forks one batch task per system of the stage
+    private final class StageTask extends RecursiveAction {
+        private final MoverSystem[] stage;
+        private final MoverStore movers;
+        private final int n;
+        private final double deltaTime;
+
+        StageTask(MoverSystem[] stage, MoverStore movers, int n, double deltaTime) {
+            this.stage = stage;
+            this.movers = movers;
+            this.n = n;
+            this.deltaTime = deltaTime;
+        }
+
+        @Override
+        protected void compute() {
+            BatchTask[] tasks = new BatchTask[stage.length];
+            for (int i = 0; i < stage.length; i++) {
+                tasks[i] = new BatchTask(stage[i], movers, 0, n, deltaTime);
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    // splits [from, to) in halves until ranges fit under the batch size
+    private final class BatchTask extends RecursiveAction {
+        private final MoverSystem system;
+        private final MoverStore movers;
+        private final int from;
+        private final int to;
+        private final double deltaTime;
+
+        BatchTask(MoverSystem system, MoverStore movers, int from, int to, double deltaTime) {
+            this.system = system;
+            this.movers = movers;
+            this.from = from;
+            this.to = to;
+            this.deltaTime = deltaTime;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                system.update(movers, from, to, deltaTime);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(system, movers, from, mid, deltaTime),
+                    new BatchTask(system, movers, mid, to, deltaTime));
+        }
+    }
+}
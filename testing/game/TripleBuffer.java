@@ -0,0 +1,43 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// lock-free single-producer/single-consumer triple buffer. the writer fills the back slot and publishes
+// it; the reader always gets the most recently published slot and never waits on, or observes, a
+// slot that is being written
+final class TripleBuffer<T> {
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH = 0b100; // set when the shared slot holds an unread publish
+
+    private final Object[] slots;
+    private final AtomicInteger shared;
+    private int back;
+    private int front;
+
+    TripleBuffer(T a, T b, T c) {
+        slots = new Object[] { a, b, c };
+        back = 0;
+        shared = new AtomicInteger(1);
+        front = 2;
+    }
+
+    // writer side: the slot to fill next
+    @SuppressWarnings("unchecked")
+    T back() {
+        return (T) slots[back];
+    }
+
+    // writer side: hands the filled back slot to the reader and takes the stale one in exchange
+    void publish() {
+        back = shared.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // reader side: latest published slot, stays valid until the next call
+    @SuppressWarnings("unchecked")
+    T front() {
+        if ((shared.get() & FRESH) != 0) {
+            front = shared.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) slots[front];
+    }
+}
@@ -0,0 +1,149 @@
+package game;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static game.LightingEngine.SHADOW_WIDTH;
+import static game.World.CELL_SIZE;
+import static game.World.GRID_SIZE;
+
+// picks what a RenderSnapshot needs for the camera's current view: casters whose shadows may be visible
+// and, at low zoom, cluster impostors standing in for groups of casters too small on screen to draw one
+// by one. runs on the simulation thread; the caster tree is rebuilt whenever the object set changes and
+// refit whenever any shadow changed
+final class ViewCuller implements CasterQuadtree.Visitor {
+    // a group of casters whose positions span fewer screen pixels than this is drawn as one impostor
+    static final double IMPOSTOR_PIXELS = 8.0;
+
+    private final Camera camera;
+    private final CasterQuadtree tree = new CasterQuadtree();
+    private int treeVersion;
+    private int treeShadowsVersion;
+    private boolean treeBuilt;
+
+    // view the last cull used, read once from the camera so a snapshot is consistent
+    double originX;
+    double originY;
+    double zoom;
+
+    // view rectangle of the last cull in grid units
+    private double viewMinX;
+    private double viewMinY;
+    private double viewMaxX;
+    private double viewMaxY;
+
+    int[] visible = new int[64]; // caster indices in ascending order
+    int visibleCount;
+    int[] clusters = new int[16]; // quadtree nodes
+    int clusterCount;
+
+    ViewCuller(Camera camera) {
+        this.camera = camera;
+    }
+
+    void cull(World world) {
+        LightingEngine lighting = world.getLighting();
+        if (!treeBuilt || treeVersion != world.getObjectsVersion()) {
+            tree.build(world.getObjects());
+            tree.refit(lighting);
+            treeVersion = world.getObjectsVersion();
+            treeShadowsVersion = lighting.getShadowsVersion();
+            treeBuilt = true;
+        } else if (treeShadowsVersion != lighting.getShadowsVersion()) {
+            tree.refit(lighting);
+            treeShadowsVersion = lighting.getShadowsVersion();
+        }
+
+        originX = camera.getOriginX();
+        originY = camera.getOriginY();
+        zoom = camera.getZoom();
+        int width = camera.getViewportWidth() > 0 ? camera.getViewportWidth() : GRID_SIZE * CELL_SIZE;
+        int height = camera.getViewportHeight() > 0 ? camera.getViewportHeight() : GRID_SIZE * CELL_SIZE;
+
+        // view rectangle and cluster size in grid units
+        double minX = originX / CELL_SIZE;
+        double minY = originY / CELL_SIZE;
+        double maxX = (originX + width / zoom) / CELL_SIZE;
+        double maxY = (originY + height / zoom) / CELL_SIZE;
+        viewMinX = minX;
+        viewMinY = minY;
+        viewMaxX = maxX;
+        viewMaxY = maxY;
+        double clusterExtent = IMPOSTOR_PIXELS / (zoom * CELL_SIZE);
+
+        visibleCount = 0;
+        clusterCount = 0;
+        tree.visit(minX, minY, maxX, maxY, clusterExtent, this);
+        Arrays.sort(visible, 0, visibleCount); // draw order stays the world's object order
+    }
+
+    // whether a box in grid units overlaps the view of the last cull, for things outside the caster tree
+    boolean inView(double minX, double minY, double maxX, double maxY) {
+        return maxX >= viewMinX && minX <= viewMaxX && maxY >= viewMinY && minY <= viewMaxY;
+    }
+
+    @Override
+    public void caster(int index) {
+        if (visibleCount == visible.length) {
+            visible = Arrays.copyOf(visible, visibleCount * 2);
+        }
+        visible[visibleCount++] = index;
+    }
+
+    @Override
+    public void cluster(int node) {
+        if (clusterCount == clusters.length) {
+            clusters = Arrays.copyOf(clusters, clusterCount * 2);
+        }
+        clusters[clusterCount++] = node;
+    }
+
+    // writes one shadow standing in for every shadow of the node's casters: a quad from the centroid along
+    // the mean shadow direction and length, as wide as the cluster, whose start alpha is chosen so its
+    // integrated darkening matches the sum of the member shadows. returns false if no member casts one
+    boolean impostor(int node, LightingEngine lighting, List<GameObject> objects, Shadow out) {
+        double sumX = 0, sumY = 0, dirX = 0, dirY = 0, sumLength = 0, darkening = 0;
+        int shadows = 0;
+        int count = 0;
+        for (int k = tree.itemStart[node]; k < tree.itemEnd[node]; k++) {
+            int i = tree.items[k];
+            Vector2D pos = objects.get(i).getPosition();
+            sumX += pos.getX();
+            sumY += pos.getY();
+            count++;
+            Shadow shadow = lighting.getShadow(i);
+            if (shadow == null) {
+                continue;
+            }
+            double length = shadow.getStart().distanceTo(shadow.getEnd());
+            double startAlpha = Math.min(0.5 * shadow.getIntensity(), 1.0);
+            darkening += startAlpha * length * shadow.getWidth();
+            dirX += shadow.getDirection().getX() * length;
+            dirY += shadow.getDirection().getY() * length;
+            sumLength += length;
+            shadows++;
+        }
+        if (shadows == 0 || darkening == 0) {
+            return false;
+        }
+
+        double centerX = sumX / count * CELL_SIZE;
+        double centerY = sumY / count * CELL_SIZE;
+        double dirLength = Math.sqrt(dirX * dirX + dirY * dirY);
+        if (dirLength == 0) {
+            dirX = 0;
+            dirY = 1;
+        } else {
+            dirX /= dirLength;
+            dirY /= dirLength;
+        }
+        // width: extent of the caster positions, at least one shadow quad wide
+        double width = Math.max(tree.positionMaxX[node] - tree.positionMinX[node],
+                tree.positionMaxY[node] - tree.positionMinY[node]) * CELL_SIZE + SHADOW_WIDTH;
+        double length = Math.max(sumLength / shadows, 1.0);
+        double startAlpha = Math.min(darkening / (length * width), 1.0);
+        out.set(centerX, centerY, centerX + dirX * length, centerY + dirY * length, 2 * startAlpha);
+        out.setWidth(width);
+        return true;
+    }
+}
@@ -0,0 +1,429 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// headless simulation state, stepped with an explicit delta time and free of any awt/swing dependency
+public class World {
+    static final int GRID_SIZE = 32; // size of map e.g. 32 -> 32x32
+    static final int CELL_SIZE = 20; // size of individual cells when displayed -> each cell is of size
+                                     // cell_size x cell_size
+    static final double DAY_LENGTH = 24.0; // length of a full cycle
+    static final double CELESTIAL_RADIUS = GRID_SIZE * CELL_SIZE / 2.0;
+    static final double INDEX_CELL_SIZE = 1.0; // spatial hash cell size in grid units
+    static final double MOVER_CELL_SIZE = 1.0; // collision grid cell size for movers, in grid units
+
+    // input flags, combined into a bitmask by the caller
+    public static final int INPUT_UP = 1;
+    public static final int INPUT_DOWN = 1 << 1;
+    public static final int INPUT_LEFT = 1 << 2;
+    public static final int INPUT_RIGHT = 1 << 3;
+
+    // misc
+    private long seed; // seed of the generated sample scene, 0 for a caller-supplied scene
+    private Player player;
+    private List<GameObject> objects;
+    private SpatialHash objectIndex;
+    private ChunkManager chunks; // null for a fixed in-memory scene
+    private int objectsVersion; // bumped whenever the object set or an object position changes
+    private final List<GameObject> nearby = new ArrayList<>(); // broad-phase query results
+    private double gameTime;
+    private int input;
+    private final MutableVector2D inputForce = new MutableVector2D();
+
+    // lighting system components
+    private CelestialBody sun;
+    private CelestialBody moon;
+    private LightingEngine lighting;
+    private final List<PointLight> lights = new ArrayList<>();
+    private PointLight playerLight; // follows the player, also contained in lights
+    private HeightField heightField;
+    private int heightFieldVersion; // objectsVersion the heightfield was built at
+
+    // moving agents and the systems that step them: physics, then collision, then shadows and top
+    // occlusion side by side
+    private final MoverStore movers = new MoverStore();
+    private final SystemScheduler moverSystems = new SystemScheduler();
+    private final MoverPhysics moverPhysics = new MoverPhysics(0, 0, GRID_SIZE, GRID_SIZE);
+    private final MoverCollision moverCollision = new MoverCollision(MOVER_CELL_SIZE);
+    private final MoverShadows moverShadows = new MoverShadows();
+    private final MoverOcclusion moverOcclusion = new MoverOcclusion();
+
+    // optional per-phase timing, null when not instrumented
+    private FrameStats stats;
+
+    // optional off-heap copy of the object shadows, written after every lighting update
+    private SharedLightingBuffer sharedBuffer;
+
+    // sample scene from a fresh seed, see getSeed to reproduce it
+    public World() {
+        this(new Random().nextLong());
+    }
+
+    // sample scene generated from seed, the same seed always gives the same scene
+    public World(long seed) {
+        this(new ArrayList<>());
+        this.seed = seed;
+
+        // add sample objects
+        initializeObjects(new Random(seed));
+        updateLighting();
+    }
+
+    // builds a world around a caller-supplied scene, e.g. for benchmarks or loaded maps
+    public World(List<GameObject> objects) {
+        player = new Player(new Vector2D(GRID_SIZE / 2.0, GRID_SIZE / 2.0));
+        this.objects = objects;
+        objectIndex = SpatialHash.of(objects, INDEX_CELL_SIZE);
+        lighting = new LightingEngine();
+
+        sun = new CelestialBody(0, true, CELESTIAL_RADIUS, CELESTIAL_RADIUS, CELESTIAL_RADIUS);
+        moon = new CelestialBody(Math.PI, false, CELESTIAL_RADIUS, CELESTIAL_RADIUS, CELESTIAL_RADIUS);
+
+        moverSystems.addStage(moverPhysics);
+        moverSystems.addStage(moverCollision);
+        moverSystems.addStage(moverShadows, moverOcclusion);
+
+        gameTime = 0.0;
+        updateLighting();
+    }
+
+    // streaming world: objects come from chunks loaded around the player and objects holds only the
+    // casters of the active area
+    public World(ChunkManager chunks) {
+        this(new ArrayList<>());
+        this.chunks = chunks;
+        chunks.setListener(new ChunkManager.Listener() {
+            @Override
+            public void chunkLoaded(Chunk chunk) {
+                List<GameObject> loaded = chunk.getObjects();
+                for (int i = 0, n = loaded.size(); i < n; i++) {
+                    objectIndex.insert(loaded.get(i));
+                }
+            }
+
+            @Override
+            public void chunkEvicted(Chunk chunk) {
+                List<GameObject> evicted = chunk.getObjects();
+                for (int i = 0, n = evicted.size(); i < n; i++) {
+                    objectIndex.remove(evicted.get(i));
+                }
+            }
+        });
+        streamChunks(true);
+        updateLighting();
+    }
+
+    private void initializeObjects(Random rand) {
+        for (int i = 0; i < 15; i++) {
+            double x = rand.nextDouble() * (GRID_SIZE - 4) + 2;
+            double y = rand.nextDouble() * (GRID_SIZE - 4) + 2;
+            double height = 1.0 + rand.nextDouble() * 2.0;
+            addObject(new GameObject(new Vector2D(x, y), height, randomLightRgb(rand)));
+        }
+    }
+
+    // packs a random colour with each channel in [0.5, 1.0], matching the original float-based sampling
+    static int randomLightRgb(Random rand) {
+        int r = Math.round((rand.nextFloat() * 0.5f + 0.5f) * 255);
+        int g = Math.round((rand.nextFloat() * 0.5f + 0.5f) * 255);
+        int b = Math.round((rand.nextFloat() * 0.5f + 0.5f) * 255);
+        return (r << 16) | (g << 8) | b;
+    }
+
+    public void addObject(GameObject obj) {
+        objectsVersion++;
+        objectIndex.insert(obj);
+        if (chunks == null) {
+            objects.add(obj);
+        } else {
+            chunks.add(obj);
+            streamChunks(true);
+        }
+    }
+
+    public void removeObject(GameObject obj) {
+        objectsVersion++;
+        objectIndex.remove(obj);
+        if (chunks == null) {
+            objects.remove(obj);
+        } else if (chunks.remove(obj)) {
+            streamChunks(true);
+        }
+    }
+
+    public void moveObject(GameObject obj, Vector2D position) {
+        objectsVersion++;
+        if (chunks == null) {
+            obj.setPosition(position);
+            objectIndex.move(obj);
+            return;
+        }
+        // may cross a chunk border, so refile it under its new chunk
+        boolean owned = chunks.remove(obj);
+        obj.setPosition(position);
+        objectIndex.move(obj);
+        if (owned) {
+            chunks.add(obj);
+        }
+        streamChunks(true);
+    }
+
+    // recenters the chunk window on the player and rebuilds the caster list when it moved
+    private void streamChunks(boolean force) {
+        Vector2D playerPos = player.getPosition();
+        if (chunks.update(playerPos.getX(), playerPos.getY()) || force) {
+            objects.clear();
+            chunks.collectCasters(objects);
+            objectsVersion++;
+        }
+    }
+
+    public void setInput(int input) {
+        this.input = input;
+    }
+
+    public int getInput() {
+        return input;
+    }
+
+    // advances simulation and lighting by deltaTime seconds
+    public void step(double deltaTime) {
+        long t = 0;
+        if (stats != null) {
+            stats.beginTick();
+            t = System.nanoTime();
+        }
+
+        // update game time
+        updateTime(deltaTime);
+
+        // handle input
+        handleInputs();
+        t = mark(FrameStats.INPUT, t);
+
+        // update player
+        player.update(deltaTime);
+        t = mark(FrameStats.PLAYER_UPDATE, t);
+
+        if (chunks != null) {
+            streamChunks(false);
+            t = mark(FrameStats.STREAMING, t);
+        }
+
+        // collision handler, broad phase narrows the candidates to objects near the player
+        Vector2D playerPos = player.getPosition();
+        nearby.clear();
+        objectIndex.queryRadius(playerPos.getX(), playerPos.getY(), player.getRadius(), nearby);
+        for (int i = 0, n = nearby.size(); i < n; i++) {
+            player.handleCollision(nearby.get(i));
+        }
+        t = mark(FrameStats.COLLISION, t);
+
+        updateLighting();
+        t = mark(FrameStats.LIGHTING, t);
+
+        if (movers.size() > 0) {
+            stepMovers(deltaTime);
+            mark(FrameStats.MOVERS, t);
+        }
+
+        if (stats != null) {
+            stats.endTick(lighting.getShadowCount(), lighting.getRecomputedCount());
+        }
+    }
+
+    // records the time since start under phase and returns the new start, a no-op without stats
+    private long mark(int phase, long start) {
+        if (stats == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        stats.record(phase, now - start);
+        return now;
+    }
+
+    private void stepMovers(double deltaTime) {
+        moverCollision.setObstacles(objects, objectsVersion);
+        CelestialBody body = getActiveCelestialBody();
+        moverShadows.setBody(body);
+        moverOcclusion.setBody(body);
+        moverSystems.run(movers, deltaTime);
+    }
+
+    private void handleInputs() {
+        inputForce.setZero();
+
+        if ((input & INPUT_UP) != 0)
+            inputForce.addInPlace(0, -1);
+        if ((input & INPUT_DOWN) != 0)
+            inputForce.addInPlace(0, 1);
+        if ((input & INPUT_LEFT) != 0)
+            inputForce.addInPlace(-1, 0);
+        if ((input & INPUT_RIGHT) != 0)
+            inputForce.addInPlace(1, 0);
+
+        if (inputForce.length() > 0) {
+            inputForce.normalizeInPlace().multiplyInPlace(player.getAcceleration());
+            player.applyForce(inputForce);
+        }
+    }
+
+    private void updateTime(double deltaTime) {
+        gameTime += deltaTime;
+        if (gameTime >= DAY_LENGTH) {
+            gameTime -= DAY_LENGTH; // normalizes to range [0, day_length]
+        }
+
+        // update celestial bodies
+        sun.update(deltaTime);
+        moon.update(deltaTime);
+    }
+
+    public void updateLighting() {
+        if (heightField != null && heightFieldVersion != objectsVersion) {
+            heightField.build(objects);
+            heightFieldVersion = objectsVersion;
+        }
+        Vector2D playerPos = player.getPosition();
+        lighting.setFocus(playerPos.getX(), playerPos.getY());
+        lighting.update(objects, getActiveCelestialBody());
+        if (playerLight != null) {
+            playerLight.setPosition(playerPos.getX(), playerPos.getY());
+        }
+        lighting.updatePointLights(lights, objectIndex);
+        if (sharedBuffer != null) {
+            sharedBuffer.writeShadows(lighting.getAmbientLight(), lighting.getShadows());
+        }
+    }
+
+    // occlusion heightfield over the objects, rebuilt whenever the object set changes; null turns it off
+    public void setHeightField(HeightField heightField) {
+        this.heightField = heightField;
+        if (heightField != null) {
+            heightField.build(objects);
+            heightFieldVersion = objectsVersion;
+        }
+        lighting.setHeightField(heightField);
+        moverOcclusion.setHeightField(heightField);
+    }
+
+    public HeightField getHeightField() {
+        return heightField;
+    }
+
+    public void addLight(PointLight light) {
+        lights.add(light);
+    }
+
+    public void removeLight(PointLight light) {
+        lights.remove(light);
+        if (light == playerLight) {
+            playerLight = null;
+        }
+    }
+
+    public List<PointLight> getLights() {
+        return lights;
+    }
+
+    // a light carried by the player, kept on the player's position every step; null removes it
+    public void setPlayerLight(PointLight light) {
+        if (playerLight != null) {
+            lights.remove(playerLight);
+        }
+        playerLight = light;
+        if (light != null) {
+            lights.add(light);
+        }
+    }
+
+    public PointLight getPlayerLight() {
+        return playerLight;
+    }
+
+    // adds a mover at rest and returns its id; it starts wandering and casting a shadow on the next step
+    public int addMover(double x, double y, double height, double radius, int rgb) {
+        return movers.add(x, y, height, radius, rgb);
+    }
+
+    public MoverStore getMovers() {
+        return movers;
+    }
+
+    // e.g. to run the mover systems on several threads through setParallelism
+    public SystemScheduler getMoverSystems() {
+        return moverSystems;
+    }
+
+    // area movers wander in, in grid units; the default map by default
+    public void setMoverBounds(double minX, double minY, double maxX, double maxY) {
+        moverPhysics.setBounds(minX, minY, maxX, maxY);
+    }
+
+    public CelestialBody getActiveCelestialBody() {
+        return sun.isVisible() ? sun : moon;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public List<GameObject> getObjects() {
+        return objects;
+    }
+
+    // changes whenever objects are added, removed or moved through this world, lets views cache
+    // anything derived from the object set
+    public int getObjectsVersion() {
+        return objectsVersion;
+    }
+
+    public SpatialHash getObjectIndex() {
+        return objectIndex;
+    }
+
+    public ChunkManager getChunks() {
+        return chunks;
+    }
+
+    public double getGameTime() {
+        return gameTime;
+    }
+
+    public CelestialBody getSun() {
+        return sun;
+    }
+
+    public CelestialBody getMoon() {
+        return moon;
+    }
+
+    // set before the world is stepped from another thread
+    public void setStats(FrameStats stats) {
+        this.stats = stats;
+    }
+
+    public FrameStats getStats() {
+        return stats;
+    }
+
+    // publishes the object shadows into buffer from the next lighting update on, set before the world is
+    // stepped from another thread; null stops publishing
+    public void setSharedBuffer(SharedLightingBuffer sharedBuffer) {
+        this.sharedBuffer = sharedBuffer;
+    }
+
+    public SharedLightingBuffer getSharedBuffer() {
+        return sharedBuffer;
+    }
+
+    public LightingEngine getLighting() {
+        return lighting;
+    }
+}
@@ -0,0 +1,94 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// versioned binary scene format. layout, little-endian:
+//   header (32 bytes): magic "LGTW", int version, long object count, 16 reserved bytes
+//   columns: double x[n], double y[n], double height[n], double radius[n], int rgb[n]
+// every column is mapped separately and bulk-copied into an ObjectStore, so loading costs page faults
+// and memcpy rather than per-object parsing, and no single mapping exceeds 2GB
+public final class WorldSnapshot {
+    static final int MAGIC = 0x4C475457; // "LGTW"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private WorldSnapshot() {
+    }
+
+    public static void write(Path path, ObjectStore store) throws IOException {
+        int n = store.size();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(n);
+            header.rewind();
+            channel.write(header, 0);
+
+            long offset = HEADER_BYTES;
+            offset = writeColumn(channel, offset, store.x, n);
+            offset = writeColumn(channel, offset, store.y, n);
+            offset = writeColumn(channel, offset, store.height, n);
+            offset = writeColumn(channel, offset, store.radius, n);
+            map(channel, FileChannel.MapMode.READ_WRITE, offset, (long) n * Integer.BYTES)
+                    .asIntBuffer().put(store.rgb, 0, n);
+        }
+    }
+
+    public static ObjectStore read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("not a world snapshot: " + path);
+            }
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a world snapshot: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported world snapshot version " + version + ": " + path);
+            }
+            long count = header.getLong();
+            long expected = HEADER_BYTES + count * (4L * Double.BYTES + Integer.BYTES);
+            if (count < 0 || count > Integer.MAX_VALUE || channel.size() < expected) {
+                throw new IOException("truncated world snapshot: " + path);
+            }
+
+            int n = (int) count;
+            ObjectStore store = new ObjectStore(n);
+            long offset = HEADER_BYTES;
+            offset = readColumn(channel, offset, store.x, n);
+            offset = readColumn(channel, offset, store.y, n);
+            offset = readColumn(channel, offset, store.height, n);
+            offset = readColumn(channel, offset, store.radius, n);
+            map(channel, FileChannel.MapMode.READ_ONLY, offset, (long) n * Integer.BYTES)
+                    .asIntBuffer().get(store.rgb, 0, n);
+            store.setSize(n);
+            return store;
+        }
+    }
+
+    private static long writeColumn(FileChannel channel, long offset, double[] column, int n) throws IOException {
+        long bytes = (long) n * Double.BYTES;
+        map(channel, FileChannel.MapMode.READ_WRITE, offset, bytes).asDoubleBuffer().put(column, 0, n);
+        return offset + bytes;
+    }
+
+    private static long readColumn(FileChannel channel, long offset, double[] column, int n) throws IOException {
+        long bytes = (long) n * Double.BYTES;
+        map(channel, FileChannel.MapMode.READ_ONLY, offset, bytes).asDoubleBuffer().get(column, 0, n);
+        return offset + bytes;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long offset, long bytes)
+            throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, offset, bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import static game.LightingEngine.SHADOW_WIDTH;
+import static game.World.CELL_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// a streamed world lights its active area exactly like a world holding every object: the halo cull in
+// ChunkManager.collectCasters only drops casters whose shadow cannot reach the active area
+class ChunkShadowTest {
+    private static final long SEED = 1234L;
+    private static final int OBJECTS_PER_CHUNK = 400;
+    private static final int ACTIVE_RADIUS = 1;
+
+    // away from the orbit, so the body lights the active area from outside and border casters throw their
+    // shadows inwards
+    private static final int CENTER_X = 4;
+    private static final int CENTER_Y = 1;
+
+    @Test
+    void streamedShadowsMatchUnstreamed() {
+        ProceduralChunkSource source = new ProceduralChunkSource(SEED, OBJECTS_PER_CHUNK);
+        World streamed = new World(new ChunkManager(source, ACTIVE_RADIUS, Long.MAX_VALUE));
+        streamed.getPlayer().setPosition(new Vector2D((CENTER_X + 0.5) * ChunkManager.CHUNK_SIZE,
+                (CENTER_Y + 0.5) * ChunkManager.CHUNK_SIZE));
+        streamed.step(0);
+
+        // everything within two rings of the halo, so casters the cull drops are present here
+        List<GameObject> everything = new ArrayList<>();
+        int radius = ACTIVE_RADIUS + 3;
+        for (int cy = CENTER_Y - radius; cy <= CENTER_Y + radius; cy++) {
+            for (int cx = CENTER_X - radius; cx <= CENTER_X + radius; cx++) {
+                everything.addAll(source.load(cx, cy).getObjects());
+            }
+        }
+        World unstreamed = new World(everything);
+
+        double chunkPixels = ChunkManager.CHUNK_SIZE * CELL_SIZE;
+        double minX = (CENTER_X - ACTIVE_RADIUS) * chunkPixels;
+        double maxX = (CENTER_X + ACTIVE_RADIUS + 1) * chunkPixels;
+        double minY = (CENTER_Y - ACTIVE_RADIUS) * chunkPixels;
+        double maxY = (CENTER_Y + ACTIVE_RADIUS + 1) * chunkPixels;
+
+        // from just above the horizon, where shadows are longest, to noon
+        for (double angle = Math.PI + 0.01; angle < 1.5 * Math.PI; angle += 0.1) {
+            CelestialBody sun = new CelestialBody(angle, true, World.CELESTIAL_RADIUS, World.CELESTIAL_RADIUS,
+                    World.CELESTIAL_RADIUS);
+            double[][] expected = shadowsReaching(unstreamed, sun, minX, minY, maxX, maxY);
+            double[][] actual = shadowsReaching(streamed, sun, minX, minY, maxX, maxY);
+            assertEquals(expected.length, actual.length, "shadows reaching the active area at angle " + angle);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(Arrays.toString(expected[i]), Arrays.toString(actual[i]), "shadow at angle " + angle);
+            }
+        }
+    }
+
+    // start, end and intensity of every shadow whose quad may touch the given rectangle in pixels, sorted
+    private static double[][] shadowsReaching(World world, CelestialBody sun, double minX, double minY,
+            double maxX, double maxY) {
+        LightingEngine lighting = world.getLighting();
+        lighting.update(world.getObjects(), sun);
+        List<double[]> reaching = new ArrayList<>();
+        for (Shadow shadow : lighting.getShadows()) {
+            Vector2D start = shadow.getStart();
+            Vector2D end = shadow.getEnd();
+            double half = SHADOW_WIDTH / 2;
+            if (Math.max(start.getX(), end.getX()) + half > minX && Math.min(start.getX(), end.getX()) - half < maxX
+                    && Math.max(start.getY(), end.getY()) + half > minY
+                    && Math.min(start.getY(), end.getY()) - half < maxY) {
+                reaching.add(new double[] { start.getX(), start.getY(), end.getX(), end.getY(),
+                        shadow.getIntensity() });
+            }
+        }
+        reaching.sort(Comparator.<double[]>comparingDouble(s -> s[0]).thenComparingDouble(s -> s[1]));
+        return reaching.toArray(new double[0][]);
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// the baked table uses the live shadow model, so it only differs from LightingEngine.calculateShadow by
+// the lerp between samples, and objects changed since the bake are lit exactly as live
+class DayCycleTableTest {
+    private static final int SAMPLES = DayCycleTable.DEFAULT_SAMPLES;
+
+    // float storage of the baked ends
+    private static final double SAMPLE_TOLERANCE = 1e-3;
+
+    @Test
+    void bakedShadowsMatchLiveAtSamples() {
+        World world = new World(42L);
+        List<GameObject> objects = world.getObjects();
+        DayCycleTable table = DayCycleTable.bake(objects, SAMPLES);
+        for (int k = 0; k < SAMPLES; k++) {
+            double angle = 2 * Math.PI * k / SAMPLES;
+            assertTrue(maxEndError(table, objects, angle) <= SAMPLE_TOLERANCE, "sample " + k);
+        }
+    }
+
+    @Test
+    void bakedShadowsStayCloseBetweenSamples() {
+        World world = new World(42L);
+        List<GameObject> objects = world.getObjects();
+        DayCycleTable table = DayCycleTable.bake(objects, SAMPLES);
+        double worst = 0;
+        for (int k = 0; k < SAMPLES; k++) {
+            worst = Math.max(worst, maxEndError(table, objects, 2 * Math.PI * (k + 0.5) / SAMPLES));
+        }
+        // halfway between samples, the worst case for the lerp; about half a pixel at the default sample count
+        assertTrue(worst < 1.0, "worst shadow end error " + worst + "px");
+    }
+
+    @Test
+    void changedObjectsAreLitLive() {
+        World world = new World(42L);
+        List<GameObject> objects = world.getObjects();
+        DayCycleTable table = DayCycleTable.bake(objects, SAMPLES);
+        world.moveObject(objects.get(0), new Vector2D(3.5, 7.25));
+        CelestialBody sun = sun(1.3 * Math.PI);
+        table.select(sun);
+        Shadow baked = new Shadow();
+        Shadow live = new Shadow();
+        assertTrue(table.shadow(0, objects.get(0), baked));
+        assertTrue(LightingEngine.calculateShadow(objects.get(0), sun, live));
+        assertEquals(live.getEnd().getX(), baked.getEnd().getX());
+        assertEquals(live.getEnd().getY(), baked.getEnd().getY());
+        assertEquals(live.getIntensity(), baked.getIntensity(), 1e-9);
+    }
+
+    // largest distance between baked and live shadow ends over objects, with the body active at sunAngle
+    private static double maxEndError(DayCycleTable table, List<GameObject> objects, double sunAngle) {
+        CelestialBody body = sun(sunAngle);
+        if (!body.isVisible()) {
+            body = new CelestialBody(sunAngle + Math.PI, false, World.CELESTIAL_RADIUS, World.CELESTIAL_RADIUS,
+                    World.CELESTIAL_RADIUS);
+        }
+        table.select(body);
+        Shadow baked = new Shadow();
+        Shadow live = new Shadow();
+        double worst = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            assertTrue(table.shadow(i, objects.get(i), baked));
+            assertTrue(LightingEngine.calculateShadow(objects.get(i), body, live));
+            double dx = baked.getEnd().getX() - live.getEnd().getX();
+            double dy = baked.getEnd().getY() - live.getEnd().getY();
+            worst = Math.max(worst, Math.sqrt(dx * dx + dy * dy));
+        }
+        return worst;
+    }
+
+    private static CelestialBody sun(double angle) {
+        return new CelestialBody(angle, true, World.CELESTIAL_RADIUS, World.CELESTIAL_RADIUS, World.CELESTIAL_RADIUS);
+    }
+}
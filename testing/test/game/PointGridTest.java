@@ -0,0 +1,36 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// a grid over a few points spread across a huge world stays small and still finds every point
+class PointGridTest {
+    @Test
+    void sparsePointsGetACoarserGrid() {
+        int n = 1000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        Random rand = new Random(5L);
+        for (int i = 0; i < n; i++) {
+            x[i] = rand.nextDouble() * 100_000;
+            y[i] = rand.nextDouble() * 100_000;
+        }
+        PointGrid grid = new PointGrid(1.0);
+        grid.build(x, y, n);
+        assertTrue(grid.cellStart.length <= Math.max(PointGrid.MIN_CELLS, PointGrid.MAX_CELLS_PER_POINT * n) + 1,
+                "cells " + (grid.cellStart.length - 1));
+
+        // every point is filed under the cell its own position maps to
+        for (int i = 0; i < n; i++) {
+            int cell = grid.cell(grid.minColumn(x[i]), grid.minRow(y[i]));
+            boolean found = false;
+            for (int k = grid.cellStart[cell]; k < grid.cellStart[cell + 1]; k++) {
+                found |= grid.items[k] == i;
+            }
+            assertTrue(found, "point " + i + " not in its cell");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import static game.LightingEngine.SHADOW_WIDTH;
+import static game.World.CELL_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// casters spread over a world far larger than the index's cell budget still get exact answers, from
+// both the single-point and the batch query
+class ShadowQueryTest {
+    // low in the sky, where the ambient light is above 0 so shadows show
+    private static final double SUN_ANGLE = Math.PI + 0.2;
+
+    @Test
+    void sparseCastersOverAHugeWorld() {
+        Random rand = new Random(11L);
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            objects.add(new GameObject(new Vector2D(rand.nextDouble() * 100_000, rand.nextDouble() * 100_000),
+                    1.0 + rand.nextDouble() * 2.0, 0));
+        }
+        ShadowQuery query = ShadowQuery.of(objects, SUN_ANGLE);
+
+        // points around the casters, where their shadows fall
+        int count = 4000;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            Vector2D pos = objects.get(rand.nextInt(objects.size())).getPosition();
+            xs[i] = pos.getX() + (rand.nextDouble() - 0.5) * 2;
+            ys[i] = pos.getY() + (rand.nextDouble() - 0.5) * 2;
+        }
+        float[] batch = new float[count];
+        query.lightAt(xs, ys, count, batch);
+
+        CelestialBody sun = new CelestialBody(SUN_ANGLE, true, World.CELESTIAL_RADIUS, World.CELESTIAL_RADIUS,
+                World.CELESTIAL_RADIUS);
+        double celestialHeight = sun.getPosition().getY() - World.CELESTIAL_RADIUS;
+        double startAlpha = Math.min(0.5 * LightingEngine.shadowIntensity(celestialHeight), 1.0);
+        List<Shadow> shadows = new ArrayList<>();
+        for (GameObject obj : objects) {
+            Shadow shadow = new Shadow();
+            LightingEngine.calculateShadow(obj, sun, shadow);
+            shadows.add(shadow);
+        }
+        int shaded = 0;
+        for (int i = 0; i < count; i++) {
+            double expected = query.getAmbientLight() * (1 - darkest(shadows, startAlpha, xs[i], ys[i]));
+            assertEquals(expected, query.lightAt(xs[i], ys[i]), 1e-9, "point " + i);
+            assertEquals(expected, batch[i], 1e-5, "batch point " + i);
+            if (expected < query.getAmbientLight()) {
+                shaded++;
+            }
+        }
+        assertTrue(shaded > count / 20, "only " + shaded + " points in shadow");
+    }
+
+    // the shadow model of ShadowQuery, checked against every shadow instead of the index
+    private static double darkest(List<Shadow> shadows, double startAlpha, double x, double y) {
+        double px = x * CELL_SIZE, py = y * CELL_SIZE;
+        double darkest = 0;
+        for (Shadow shadow : shadows) {
+            double sx = shadow.getStart().getX(), sy = shadow.getStart().getY();
+            double dx = shadow.getEnd().getX() - sx, dy = shadow.getEnd().getY() - sy;
+            double length = Math.sqrt(dx * dx + dy * dy);
+            if (length == 0) {
+                continue;
+            }
+            double along = ((px - sx) * dx + (py - sy) * dy) / length;
+            double across = ((py - sy) * dx - (px - sx) * dy) / length;
+            if (along >= 0 && along <= length && Math.abs(across) <= SHADOW_WIDTH / 2) {
+                darkest = Math.max(darkest, startAlpha * (1 - along / length));
+            }
+        }
+        return darkest;
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// cells are deleted as they empty, so the index only ever holds the cells of the objects it contains
+class SpatialHashTest {
+    private static final int OBJECTS_PER_CHUNK = 200;
+    private static final int ACTIVE_RADIUS = 1;
+
+    @Test
+    void queriesStayCorrectWhileCellsAreDeleted() {
+        Random rand = new Random(3L);
+        SpatialHash hash = new SpatialHash(1.0);
+        List<GameObject> live = new ArrayList<>();
+        for (int round = 0; round < 20_000; round++) {
+            int op = rand.nextInt(3);
+            if (op == 0 || live.isEmpty()) {
+                GameObject obj = new GameObject(new Vector2D(rand.nextDouble() * 40, rand.nextDouble() * 40),
+                        1.0, 0);
+                live.add(obj);
+                hash.insert(obj);
+            } else if (op == 1) {
+                hash.remove(live.remove(rand.nextInt(live.size())));
+            } else {
+                GameObject obj = live.get(rand.nextInt(live.size()));
+                obj.setPosition(new Vector2D(rand.nextDouble() * 40, rand.nextDouble() * 40));
+                hash.move(obj);
+            }
+        }
+
+        assertEquals(SpatialHash.of(live, 1.0).getCellCount(), hash.getCellCount());
+        for (int i = 0; i < 200; i++) {
+            double x = rand.nextDouble() * 40, y = rand.nextDouble() * 40;
+            List<GameObject> found = new ArrayList<>();
+            hash.query(x - 2, y - 2, x + 2, y + 2, found);
+            HashSet<GameObject> foundSet = new HashSet<>(found);
+            assertTrue(live.containsAll(foundSet), "query returned a removed object");
+            for (GameObject obj : live) {
+                Vector2D pos = obj.getPosition();
+                double r = obj.getRadius();
+                if (Math.abs(pos.getX() - x) < 2 + r && Math.abs(pos.getY() - y) < 2 + r) {
+                    assertTrue(foundSet.contains(obj), "query missed an overlapping object");
+                }
+            }
+        }
+    }
+
+    @Test
+    void streamingKeepsTheIndexBounded() {
+        ChunkManager chunks = new ChunkManager(new ProceduralChunkSource(99L, OBJECTS_PER_CHUNK), ACTIVE_RADIUS, 0);
+        World world = new World(chunks);
+        int window = ACTIVE_RADIUS + 1; // a zero budget keeps only the active area and its halo resident
+        for (int step = 0; step < 40; step++) {
+            int cx = step, cy = step / 2;
+            world.getPlayer().setPosition(new Vector2D((cx + 0.5) * ChunkManager.CHUNK_SIZE,
+                    (cy + 0.5) * ChunkManager.CHUNK_SIZE));
+            world.step(0);
+
+            List<GameObject> resident = new ArrayList<>();
+            for (int dy = -window; dy <= window; dy++) {
+                for (int dx = -window; dx <= window; dx++) {
+                    Chunk chunk = chunks.getChunk(cx + dx, cy + dy);
+                    if (chunk != null) {
+                        resident.addAll(chunk.getObjects());
+                    }
+                }
+            }
+            SpatialHash index = world.getObjectIndex();
+            assertEquals(chunks.getResidentCount() * OBJECTS_PER_CHUNK, resident.size());
+            assertEquals(resident.size(), index.size());
+            assertEquals(SpatialHash.of(resident, World.INDEX_CELL_SIZE).getCellCount(), index.getCellCount(),
+                    "cells after streaming to chunk " + cx + ", " + cy);
+        }
+    }
+}
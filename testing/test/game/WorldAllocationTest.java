@@ -0,0 +1,40 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// a steady-state tick allocates nothing: lighting, point lights and movers all reuse their buffers
+class WorldAllocationTest {
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 1_000;
+
+    @Test
+    void steadyStateStepAllocatesNothing() {
+        World world = new World(42L);
+        world.setPlayerLight(new PointLight(new Vector2D(0, 0), 4.0, 6.0, 1.5, 0.9, 0xFFD27F));
+        Random rand = new Random(7L);
+        for (int i = 0; i < 50; i++) {
+            double x = 1 + rand.nextDouble() * (World.GRID_SIZE - 2);
+            double y = 1 + rand.nextDouble() * (World.GRID_SIZE - 2);
+            world.addMover(x, y, 1.5, 0.25, 0x808080);
+        }
+        world.setInput(World.INPUT_RIGHT);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // warm up until the jit has compiled the tick and every buffer has reached its size
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            world.step(1.0 / 60);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            world.step(1.0 / 60);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(0, allocated, "bytes allocated over " + MEASURED_TICKS + " ticks");
+    }
+}